@@ -0,0 +1,19 @@
+package action;
+
+import com.intellij.openapi.actionSystem.AnAction;
+import com.intellij.openapi.actionSystem.AnActionEvent;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.project.DumbAware;
+import org.jetbrains.annotations.NotNull;
+import service.ExportClassFilesService;
+
+/**
+ * 从编辑器将当前 .java 文件所对应的 .class（含内部类）导出为补丁jar或目录
+ */
+public class ExportClassFilesByEditorPopupMenuAction extends AnAction implements DumbAware {
+    @Override
+    public void actionPerformed(@NotNull AnActionEvent event) {
+        ExportClassFilesService service = ApplicationManager.getApplication().getService(ExportClassFilesService.class);
+        service.exportClassFiles(event);
+    }
+}
@@ -3,10 +3,11 @@ package action;
 import com.intellij.openapi.actionSystem.AnAction;
 import com.intellij.openapi.actionSystem.AnActionEvent;
 import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.project.DumbAware;
 import org.jetbrains.annotations.NotNull;
 import service.LocateClassFileService;
 
-public class LocateClassFileInProjectViewAndExplorerByProjectViewPopupMenuAction extends AnAction {
+public class LocateClassFileInProjectViewAndExplorerByProjectViewPopupMenuAction extends AnAction implements DumbAware {
     @Override
     public void actionPerformed(@NotNull AnActionEvent event) {
         LocateClassFileService service = ApplicationManager.getApplication().getService(LocateClassFileService.class);
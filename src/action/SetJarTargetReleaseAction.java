@@ -0,0 +1,51 @@
+package action;
+
+import com.intellij.openapi.actionSystem.AnAction;
+import com.intellij.openapi.actionSystem.AnActionEvent;
+import com.intellij.openapi.project.DumbAware;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.ui.InputValidator;
+import com.intellij.openapi.ui.Messages;
+import org.jetbrains.annotations.NotNull;
+import util.JarClassIndex;
+
+/**
+ * 设置从多版本jar（Multi-Release）中选择class文件时使用的目标版本，留空时使用项目 SDK 的版本
+ */
+public class SetJarTargetReleaseAction extends AnAction implements DumbAware {
+    @Override
+    public void actionPerformed(@NotNull AnActionEvent event) {
+        Project project = event.getProject();
+        if (project == null) return;
+
+        int configured = JarClassIndex.getConfiguredTargetRelease(project);
+        String input = Messages.showInputDialog(project,
+                "Java release used for multi-release jars (current: " + JarClassIndex.getTargetRelease(project)
+                        + "). Leave empty to use the project SDK version.",
+                "Multi-Release Jar Target Release", Messages.getQuestionIcon(),
+                configured > 0 ? String.valueOf(configured) : "", new InputValidator() {
+                    @Override
+                    public boolean checkInput(String inputString) {
+                        return inputString.trim().isEmpty() || parseRelease(inputString) > 0;
+                    }
+
+                    @Override
+                    public boolean canClose(String inputString) {
+                        return checkInput(inputString);
+                    }
+                });
+        if (input == null) return;
+        JarClassIndex.setTargetRelease(project, input.trim().isEmpty() ? 0 : parseRelease(input));
+    }
+
+    /**
+     * @return 不是正整数时返回 -1
+     */
+    private static int parseRelease(@NotNull String text) {
+        try {
+            return Integer.parseInt(text.trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
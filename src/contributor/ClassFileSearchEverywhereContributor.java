@@ -0,0 +1,191 @@
+package contributor;
+
+import com.intellij.icons.AllIcons;
+import com.intellij.ide.actions.searcheverywhere.SearchEverywhereContributor;
+import com.intellij.ide.actions.searcheverywhere.SearchEverywhereContributorFactory;
+import com.intellij.openapi.actionSystem.AnActionEvent;
+import com.intellij.openapi.actionSystem.CommonDataKeys;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.project.DumbAware;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.LocalFileSystem;
+import com.intellij.psi.codeStyle.MinusculeMatcher;
+import com.intellij.psi.codeStyle.NameUtil;
+import com.intellij.ui.ColoredListCellRenderer;
+import com.intellij.ui.SimpleTextAttributes;
+import com.intellij.util.Processor;
+import com.intellij.util.TimeoutUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import service.ClassOutputIndex;
+import util.ClassFileNameIndex;
+import util.CompactPathTrie;
+import util.PluginUtil;
+
+import javax.swing.JList;
+import javax.swing.ListCellRenderer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Search Everywhere 中的 "Class Files" 标签页：直接在编译输出中按简单名、限定名（含 $ 内部类）或驼峰缩写搜索class文件
+ * 查询走 {@link ClassFileNameIndex} 的前缀区间，每次按键只需要匹配少量候选；
+ * 索引在编译后重建期间继续使用上一次的结果
+ */
+public class ClassFileSearchEverywhereContributor implements SearchEverywhereContributor<ClassFileSearchEverywhereContributor.ClassFileItem>, DumbAware {
+
+    /**
+     * 每次查询最多检查的候选个数
+     */
+    private static final int MAX_CANDIDATES = 2000;
+
+    private final Project project;
+
+    public ClassFileSearchEverywhereContributor(@NotNull Project project) {
+        this.project = project;
+    }
+
+    @NotNull
+    @Override
+    public String getSearchProviderId() {
+        return ClassFileSearchEverywhereContributor.class.getSimpleName();
+    }
+
+    @NotNull
+    @Override
+    public String getGroupName() {
+        return "Class Files";
+    }
+
+    @Override
+    public int getSortWeight() {
+        return 500;
+    }
+
+    @Override
+    public boolean showInFindResults() {
+        return false;
+    }
+
+    @Override
+    public boolean isShownInSeparateTab() {
+        return true;
+    }
+
+    @Override
+    public void fetchElements(@NotNull String pattern, @NotNull ProgressIndicator progressIndicator,
+                              @NotNull Processor<? super ClassFileItem> consumer) {
+        String trimmed = pattern.trim();
+        if (trimmed.isEmpty() || project.isDisposed()) return;
+        // 索引重建期间使用上一次的索引；第一次构建时等待构建完成，输入变化时本次查询会被取消
+        ClassOutputIndex outputIndex = ClassOutputIndex.getInstance(project);
+        ClassFileNameIndex index = outputIndex.getNameIndex();
+        while (index == null && outputIndex.isBuilding()) {
+            progressIndicator.checkCanceled();
+            TimeoutUtil.sleep(50);
+            index = outputIndex.getNameIndex();
+        }
+        if (index == null) return;
+        CompactPathTrie trie = index.getTrie();
+
+        int dot = trimmed.lastIndexOf('.');
+        String simplePattern = dot >= 0 ? trimmed.substring(dot + 1) : trimmed;
+        String packagePattern = dot >= 0 ? trimmed.substring(0, dot + 1).toLowerCase(Locale.ROOT) : null;
+        if (simplePattern.isEmpty()) return;
+        MinusculeMatcher matcher = NameUtil.buildMatcher(simplePattern, NameUtil.MatchingCaseSensitivity.NONE);
+
+        int[] candidates = index.findCandidates(simplePattern, MAX_CANDIDATES);
+        Arrays.sort(candidates);
+        List<ClassFileItem> items = new ArrayList<>();
+        int previous = -1;
+        for (int node : candidates) {
+            if (node == previous) continue;
+            previous = node;
+            progressIndicator.checkCanceled();
+
+            String name = trie.getName(node);
+            String simpleName = name.substring(name.lastIndexOf('$') + 1);
+            int degree = Math.max(matcher.matches(name) ? matcher.matchingDegree(name) : Integer.MIN_VALUE,
+                    matcher.matches(simpleName) ? matcher.matchingDegree(simpleName) : Integer.MIN_VALUE);
+            if (degree == Integer.MIN_VALUE) continue;
+
+            String qualifiedName = trie.getQualifiedName(node);
+            if (packagePattern != null && !qualifiedName.toLowerCase(Locale.ROOT).contains(packagePattern)) continue;
+            items.add(new ClassFileItem(qualifiedName, trie.getPath(node), trie.getName(trie.getRoot(node)), degree));
+        }
+
+        items.sort((a, b) -> a.degree != b.degree
+                ? Integer.compare(b.degree, a.degree)
+                : a.qualifiedName.compareTo(b.qualifiedName));
+        for (ClassFileItem item : items) {
+            if (!consumer.process(item)) return;
+        }
+    }
+
+    @Override
+    public boolean processSelectedItem(@NotNull ClassFileItem selected, int modifiers, @NotNull String searchText) {
+        PluginUtil.openInProjectView(project, selected.path);
+        return true;
+    }
+
+    @NotNull
+    @Override
+    public ListCellRenderer<? super ClassFileItem> getElementsRenderer() {
+        return new ColoredListCellRenderer<ClassFileItem>() {
+            @Override
+            protected void customizeCellRenderer(@NotNull JList<? extends ClassFileItem> list, ClassFileItem value,
+                                                 int index, boolean selected, boolean hasFocus) {
+                setIcon(AllIcons.FileTypes.JavaClass);
+                String simpleName = value.qualifiedName.substring(value.qualifiedName.lastIndexOf('.') + 1);
+                append(simpleName);
+                append("  " + value.qualifiedName + " (" + value.root + ")", SimpleTextAttributes.GRAYED_ATTRIBUTES);
+            }
+        };
+    }
+
+    @Nullable
+    @Override
+    public Object getDataForItem(@NotNull ClassFileItem element, @NotNull String dataId) {
+        if (CommonDataKeys.VIRTUAL_FILE.is(dataId)) {
+            return LocalFileSystem.getInstance().findFileByPath(element.path);
+        }
+        return null;
+    }
+
+    /**
+     * 搜索结果中的一个class文件
+     */
+    public static final class ClassFileItem {
+        private final String qualifiedName;
+        private final String path;
+        private final String root;
+        private final int degree;
+
+        ClassFileItem(String qualifiedName, String path, String root, int degree) {
+            this.qualifiedName = qualifiedName;
+            this.path = path;
+            this.root = root;
+            this.degree = degree;
+        }
+
+        @NotNull
+        public String getPath() {
+            return path;
+        }
+
+        @Override
+        public String toString() {
+            return qualifiedName;
+        }
+    }
+
+    public static final class Factory implements SearchEverywhereContributorFactory<ClassFileItem> {
+        @NotNull
+        @Override
+        public SearchEverywhereContributor<ClassFileItem> createContributor(@NotNull AnActionEvent initEvent) {
+            return new ClassFileSearchEverywhereContributor(initEvent.getRequiredData(CommonDataKeys.PROJECT));
+        }
+    }
+}
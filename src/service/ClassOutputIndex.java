@@ -0,0 +1,258 @@
+package service;
+
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.openapi.compiler.CompilationStatusListener;
+import com.intellij.openapi.compiler.CompileContext;
+import com.intellij.openapi.compiler.CompilerTopics;
+import com.intellij.openapi.components.Service;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.roots.ProjectRootManager;
+import com.intellij.openapi.vfs.VirtualFileManager;
+import com.intellij.openapi.vfs.newvfs.BulkFileListener;
+import com.intellij.openapi.vfs.newvfs.events.VFileContentChangeEvent;
+import com.intellij.openapi.vfs.newvfs.events.VFileEvent;
+import com.intellij.openapi.vfs.newvfs.events.VFileMoveEvent;
+import com.intellij.openapi.vfs.newvfs.events.VFilePropertyChangeEvent;
+import com.intellij.util.concurrency.AppExecutorUtil;
+import com.intellij.util.messages.MessageBusConnection;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import util.ClassFileNameIndex;
+import util.CompactPathTrie;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 项目中所有编译输出目录下class文件的索引，底层是紧凑的 {@link CompactPathTrie}
+ * 索引在后台线程构建；编译完成、VFS 中有class文件变化，或者输出目录本身（及其上级、下级目录）被创建、删除、移动时失效，
+ * 下次查询时在后台重建。IDE 外部执行 mvn clean 等命令删除整个输出目录时，VFS 刷新后只有目录的事件，没有各个class文件的事件。
+ * 判断文件是否存在的查询只使用最新的索引，未就绪时返回 null，调用方需要退回到直接访问磁盘；
+ * 按类名搜索在重建期间继续使用上一次的索引
+ */
+@Service
+public final class ClassOutputIndex implements Disposable {
+
+    private static final Logger LOG = Logger.getInstance(ClassOutputIndex.class);
+
+    private final Project project;
+    private final AtomicBoolean building = new AtomicBoolean();
+
+    private final AtomicLong invalidationCount = new AtomicLong();
+
+    private volatile Snapshot snapshot;
+
+    public ClassOutputIndex(@NotNull Project project) {
+        this.project = project;
+
+        MessageBusConnection connection = project.getMessageBus().connect(this);
+        connection.subscribe(CompilerTopics.COMPILATION_STATUS, new CompilationStatusListener() {
+            @Override
+            public void compilationFinished(boolean aborted, int errors, int warnings, @NotNull CompileContext compileContext) {
+                invalidate();
+            }
+        });
+        connection.subscribe(VirtualFileManager.VFS_CHANGES, new BulkFileListener() {
+            @Override
+            public void after(@NotNull List<? extends VFileEvent> events) {
+                for (VFileEvent event : events) {
+                    if (event.getPath().endsWith(".class") || affectsOutputRoots(event)) {
+                        invalidate();
+                        return;
+                    }
+                }
+            }
+        });
+    }
+
+    @NotNull
+    public static ClassOutputIndex getInstance(@NotNull Project project) {
+        return project.getService(ClassOutputIndex.class);
+    }
+
+    /**
+     * 获取当前可用的索引；索引不存在或已失效时在后台开始构建并返回 null
+     */
+    @Nullable
+    public CompactPathTrie getTrie() {
+        Snapshot current = getSnapshot(false);
+        return current == null ? null : current.trie;
+    }
+
+    /**
+     * 获取类名前缀索引，用于按类名搜索class文件
+     * 索引失效后在后台重建，重建完成前返回上一次的索引；从未构建过时返回 null
+     */
+    @Nullable
+    public ClassFileNameIndex getNameIndex() {
+        Snapshot current = getSnapshot(true);
+        return current == null ? null : current.nameIndex;
+    }
+
+    /**
+     * 通过索引判断class文件是否存在
+     * @param path class文件的完整路径
+     * @return 索引中存在时返回 true，不存在返回 false；索引未就绪或路径不在任何输出根目录下时返回 null
+     */
+    @Nullable
+    public Boolean containsClassFile(@NotNull String path) {
+        Snapshot current = getSnapshot(false);
+        if (current == null) return null;
+
+        String normalized = path.replace('\\', '/');
+        int root = current.trie.findRootOf(normalized);
+        if (root < 0) return null;
+        return current.trie.findFile(root, normalized, current.trie.getRootPath(root).length() + 1) >= 0;
+    }
+
+    /**
+     * @param allowStale 索引已失效时是否返回上一次的索引（同时在后台开始重建）
+     */
+    @Nullable
+    private Snapshot getSnapshot(boolean allowStale) {
+        Snapshot current = snapshot;
+        if (current != null && current.invalidationCount == invalidationCount.get()
+                && current.rootsModificationCount == ProjectRootManager.getInstance(project).getModificationCount()) {
+            return current;
+        }
+        scheduleBuild();
+        return allowStale ? current : null;
+    }
+
+    /**
+     * 诊断信息：索引规模和估算的堆内存占用
+     */
+    @NotNull
+    public String describe() {
+        Snapshot current = getSnapshot(false);
+        return current == null ? "not ready (building in background)" : current.nameIndex.describe();
+    }
+
+    /**
+     * 目录的创建、删除、移动或重命名是否涉及索引的输出目录：事件路径就是输出目录、位于其中或者包含它
+     * 还没有索引时无法判断，按涉及处理
+     */
+    private boolean affectsOutputRoots(@NotNull VFileEvent event) {
+        if (event instanceof VFileContentChangeEvent) return false;
+        if (event instanceof VFilePropertyChangeEvent && !((VFilePropertyChangeEvent) event).isRename()) return false;
+        Snapshot current = snapshot;
+        if (current == null) return true;
+        if (isRelated(event.getPath(), current.roots)) return true;
+        if (event instanceof VFileMoveEvent) {
+            return isRelated(((VFileMoveEvent) event).getOldPath(), current.roots);
+        }
+        if (event instanceof VFilePropertyChangeEvent) {
+            return isRelated(((VFilePropertyChangeEvent) event).getOldPath(), current.roots);
+        }
+        return false;
+    }
+
+    private static boolean isRelated(@NotNull String path, @NotNull List<String> roots) {
+        for (String root : roots) {
+            if (isAncestorOrSelf(root, path) || isAncestorOrSelf(path, root)) return true;
+        }
+        return false;
+    }
+
+    private static boolean isAncestorOrSelf(@NotNull String ancestor, @NotNull String path) {
+        return path.startsWith(ancestor) && (path.length() == ancestor.length() || path.charAt(ancestor.length()) == '/');
+    }
+
+    /**
+     * 是否正在后台构建索引
+     */
+    public boolean isBuilding() {
+        return building.get();
+    }
+
+    public void invalidate() {
+        invalidationCount.incrementAndGet();
+    }
+
+    private void scheduleBuild() {
+        if (project.isDisposed() || !building.compareAndSet(false, true)) return;
+        AppExecutorUtil.getAppExecutorService().execute(() -> {
+            try {
+                long startInvalidation = invalidationCount.get();
+                long rootsModificationCount = ReadAction.compute(() -> ProjectRootManager.getInstance(project).getModificationCount());
+                Set<String> allRoots = ReadAction.compute(this::collectRootPaths);
+                List<String> roots = getOutermostRoots(allRoots);
+                long start = System.currentTimeMillis();
+                CompactPathTrie trie = CompactPathTrie.build(roots, allRoots);
+                ClassFileNameIndex nameIndex = ClassFileNameIndex.build(trie);
+                snapshot = new Snapshot(startInvalidation, rootsModificationCount, roots, trie, nameIndex);
+                LOG.info("Class output index built in " + (System.currentTimeMillis() - start) + " ms: " + nameIndex.describe());
+            } catch (Exception e) {
+                LOG.warn("Failed to build class output index", e);
+            } finally {
+                building.set(false);
+            }
+        });
+    }
+
+    /**
+     * 所有的输出根目录：只包含各模块实际的编译输出目录（Maven/Gradle 导入的模块即 target/classes、build/classes/java/main 等），
+     * 不扫描内容根下的 out、build 等整个目录，其中的 build/tmp、打包产物等不属于编译输出
+     */
+    @NotNull
+    private Set<String> collectRootPaths() {
+        Set<String> roots = new LinkedHashSet<>();
+        if (project.isDisposed()) return roots;
+        for (OutputRootIndex.OutputRoot root : OutputRootIndex.getInstance(project).getModuleOutputRoots(null)) {
+            if (!root.isJar()) roots.add(normalize(root.getPath()));
+        }
+        return roots;
+    }
+
+    /**
+     * 需要扫描的根目录：嵌套在其他根目录下的目录（例如 out 下的 out/production/module）不再单独扫描，避免重复节点
+     */
+    @NotNull
+    private static List<String> getOutermostRoots(@NotNull Set<String> roots) {
+        List<String> outermost = new ArrayList<>();
+        for (String root : roots) {
+            boolean nested = false;
+            for (int slash = root.lastIndexOf('/'); slash > 0 && !nested; slash = root.lastIndexOf('/', slash - 1)) {
+                nested = roots.contains(root.substring(0, slash));
+            }
+            if (!nested) outermost.add(root);
+        }
+        return outermost;
+    }
+
+    @NotNull
+    private static String normalize(@NotNull String path) {
+        String normalized = path.replace(File.separatorChar, '/');
+        return normalized.endsWith("/") ? normalized.substring(0, normalized.length() - 1) : normalized;
+    }
+
+    @Override
+    public void dispose() {
+    }
+
+    private static final class Snapshot {
+        final long invalidationCount;
+        final long rootsModificationCount;
+        /**
+         * 扫描的（最外层）输出目录
+         */
+        final List<String> roots;
+        final CompactPathTrie trie;
+        final ClassFileNameIndex nameIndex;
+
+        Snapshot(long invalidationCount, long rootsModificationCount, List<String> roots, CompactPathTrie trie, ClassFileNameIndex nameIndex) {
+            this.invalidationCount = invalidationCount;
+            this.rootsModificationCount = rootsModificationCount;
+            this.roots = roots;
+            this.trie = trie;
+            this.nameIndex = nameIndex;
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package service;
+
+import com.intellij.openapi.actionSystem.AnActionEvent;
+import com.intellij.openapi.actionSystem.CommonDataKeys;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.openapi.components.Service;
+import com.intellij.openapi.fileChooser.FileChooser;
+import com.intellij.openapi.fileChooser.FileChooserDescriptorFactory;
+import com.intellij.openapi.fileChooser.FileChooserFactory;
+import com.intellij.openapi.fileChooser.FileSaverDescriptor;
+import com.intellij.openapi.progress.ProcessCanceledException;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.progress.Task;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.ui.Messages;
+import com.intellij.openapi.vfs.VfsUtilCore;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.vfs.VirtualFileWrapper;
+import org.jetbrains.annotations.NotNull;
+import util.ClassFileExporter;
+import util.ClassFileLocator;
+import util.JavaSourceNames;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+@Service
+public final class ExportClassFilesService {
+
+    /**
+     * 将选中的 .java 文件（或目录下的所有 .java 文件）对应的class文件（含内部类）导出为jar或目录
+     */
+    public void exportClassFiles(AnActionEvent event) {
+        try {
+            Project project = event.getProject();
+            VirtualFile[] selectedFiles = event.getData(CommonDataKeys.VIRTUAL_FILE_ARRAY);
+            if (selectedFiles == null) {
+                VirtualFile virtualFile = event.getData(CommonDataKeys.VIRTUAL_FILE);
+                selectedFiles = virtualFile == null ? null : new VirtualFile[]{virtualFile};
+            }
+            if (project == null || selectedFiles == null || selectedFiles.length == 0) return;
+
+            List<VirtualFile> sources = collectJavaFiles(selectedFiles);
+            if (sources.isEmpty()) {
+                throw new Exception("No .java file is selected.");
+            }
+
+            int choice = Messages.showDialog(project, "Export " + sources.size() + " source file(s) as:", "Export Class Files",
+                    new String[]{"Jar", "Directory", "Cancel"}, 0, Messages.getQuestionIcon());
+            File target;
+            if (choice == 0) {
+                FileSaverDescriptor descriptor = new FileSaverDescriptor("Export Class Files", "Choose the patch jar file", "jar");
+                VirtualFileWrapper wrapper = FileChooserFactory.getInstance().createSaveFileDialog(descriptor, project).save((VirtualFile) null, "patch.jar");
+                if (wrapper == null) return;
+                target = wrapper.getFile();
+            } else if (choice == 1) {
+                VirtualFile dir = FileChooser.chooseFile(FileChooserDescriptorFactory.createSingleFolderDescriptor(), project, null);
+                if (dir == null) return;
+                target = new File(dir.getPath());
+                String outputRoot = ClassFileExporter.findOverlappingOutputRoot(target, collectOutputRoots(project));
+                if (outputRoot != null) {
+                    throw new Exception("Cannot export into a class output directory, the exported files would overwrite the compiled classes:\n"
+                            + outputRoot + "\nPlease choose a directory outside the build output.");
+                }
+            } else {
+                return;
+            }
+
+            boolean toJar = choice == 0;
+            ProgressManager.getInstance().run(new Task.Backgroundable(project, "Exporting class files", true) {
+                @Override
+                public void run(@NotNull ProgressIndicator indicator) {
+                    export(project, sources, target, toJar, indicator);
+                }
+            });
+        } catch (Exception e) {
+            e.printStackTrace();
+            Messages.showErrorDialog("Error: " + e.getMessage(), "Error");
+        }
+    }
+
+    private static void export(Project project, List<VirtualFile> sources, File target, boolean toJar, ProgressIndicator indicator) {
+        ClassFileExporter exporter = new ClassFileExporter(ClassOutputIndex.getInstance(project).getTrie());
+        List<String> missing = new ArrayList<>();
+        try {
+            indicator.setIndeterminate(false);
+            for (int i = 0; i < sources.size(); i++) {
+                indicator.checkCanceled();
+                VirtualFile source = sources.get(i);
+                indicator.setFraction((double) i / sources.size());
+                indicator.setText2(source.getName());
+
+                String packageName = ReadAction.compute(() -> JavaSourceNames.getPackageName(project, source));
+                // 查找本身按策略分段获取读锁，不在外层持有读锁
+                String classFilePath = ClassFileLocator.getMostLikelyLocalClassFilePath(project, source, packageName);
+                if (classFilePath == null) {
+                    missing.add(source.getName());
+                    continue;
+                }
+                exporter.addClass(packageName, new File(classFilePath));
+            }
+
+            indicator.setText2(target.getPath());
+            if (toJar) {
+                exporter.exportToJar(target);
+            } else {
+                exporter.exportToDirectory(target);
+            }
+
+            StringBuilder message = new StringBuilder();
+            message.append("Exported ").append(exporter.size()).append(" class file(s) to:\n").append(target.getPath());
+            if (!missing.isEmpty()) {
+                message.append("\n\nNo compiled class file found for (may need to compile first):\n");
+                missing.forEach(name -> message.append("• ").append(name).append("\n"));
+            }
+            ApplicationManager.getApplication().invokeLater(() -> Messages.showInfoMessage(project, message.toString(), "Export Class Files"));
+        } catch (ProcessCanceledException e) {
+            throw e;
+        } catch (Exception e) {
+            e.printStackTrace();
+            ApplicationManager.getApplication().invokeLater(() -> Messages.showErrorDialog(project, "Error: " + e.getMessage(), "Error"));
+        }
+    }
+
+    /**
+     * 查找class文件时使用的所有本地输出目录：模块编译输出目录以及内容根下的 out、build、target 等目录
+     */
+    @NotNull
+    private static List<String> collectOutputRoots(@NotNull Project project) {
+        OutputRootIndex outputRootIndex = OutputRootIndex.getInstance(project);
+        List<String> roots = new ArrayList<>(outputRootIndex.getProjectOutputDirs());
+        for (OutputRootIndex.OutputRoot root : outputRootIndex.getModuleOutputRoots(null)) {
+            if (!root.isJar()) roots.add(root.getPath());
+        }
+        return roots;
+    }
+
+    /**
+     * 收集选中的 .java 文件，选中目录时递归收集其中的所有 .java 文件
+     */
+    @NotNull
+    private static List<VirtualFile> collectJavaFiles(@NotNull VirtualFile[] selectedFiles) {
+        List<VirtualFile> javaFiles = new ArrayList<>();
+        for (VirtualFile selected : selectedFiles) {
+            VfsUtilCore.iterateChildrenRecursively(selected, null, file -> {
+                if (!file.isDirectory() && "java".equals(file.getExtension())) {
+                    javaFiles.add(file);
+                }
+                return true;
+            });
+        }
+        return javaFiles;
+    }
+}
@@ -1,27 +1,48 @@
 package service;
 
+import com.intellij.notification.NotificationDisplayType;
+import com.intellij.notification.NotificationGroup;
+import com.intellij.notification.NotificationType;
 import com.intellij.openapi.actionSystem.AnActionEvent;
 import com.intellij.openapi.actionSystem.CommonDataKeys;
+import com.intellij.openapi.application.ApplicationManager;
 import com.intellij.openapi.components.Service;
+import com.intellij.openapi.progress.ProcessCanceledException;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.progress.Task;
 import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.io.FileUtil;
 import com.intellij.openapi.ui.Messages;
 import com.intellij.openapi.vfs.VirtualFile;
-import com.intellij.psi.PsiFile;
-import com.intellij.psi.PsiJavaFile;
 import constants.ProjectTypeEnum;
+import org.jetbrains.annotations.NotNull;
+import ui.ClassFileCandidatesPopup;
+import util.ClassFileDuplicateDetector;
 import util.ClassFileLocator;
 import util.PluginUtil;
 
 import java.io.File;
+import java.util.ArrayList;
 import java.util.List;
 
 @Service
 public final class LocateClassFileService {
 
+    private static final NotificationGroup NOTIFICATION_GROUP =
+            new NotificationGroup("Java To Class", NotificationDisplayType.BALLOON, true);
+
     public void locateClassFile(AnActionEvent event, boolean isOpenInProjectView, boolean isOpenInExplorer) {
+        // 项目视图中选中了多个文件时，一次性处理，文件管理器只启动一次
+        VirtualFile[] selectedFiles = event.getData(CommonDataKeys.VIRTUAL_FILE_ARRAY);
+        if (selectedFiles != null && selectedFiles.length > 1 && event.getProject() != null) {
+            locateClassFiles(event.getProject(), selectedFiles, isOpenInProjectView, isOpenInExplorer);
+            return;
+        }
+
         try {
+            // 只使用 VirtualFile，不依赖 PSI，索引构建期间（dumb mode）同样可用
             VirtualFile virtualFile = event.getData(CommonDataKeys.VIRTUAL_FILE);
-            PsiFile psiFile = event.getData(CommonDataKeys.PSI_FILE);
             if (virtualFile == null) return;
 
             // 当前编辑器中被选中的文件路径
@@ -30,8 +51,6 @@ public final class LocateClassFileService {
             // 获取项目类型
             Project project = event.getProject();
             ProjectTypeEnum projectType = PluginUtil.getProjectType(project);
-            String projectPath = project.getPresentableUrl();
-            String projectName = project.getName();
 
             if (!currentFilePath.endsWith(".java")) {
                 throw new Exception("The current file is not .java file.");
@@ -40,58 +59,220 @@ public final class LocateClassFileService {
                 throw new Exception("The file type could not be solved.");
             }
 
-            PsiJavaFile javaFile = (PsiJavaFile) psiFile;
-
-            // 获取所有可能的class文件路径
-            List<String> paths = ClassFileLocator.getClassFilePaths(project, javaFile);
-            List<String> existingPaths = ClassFileLocator.getExistingClassFilePaths(project, javaFile);
-            String mostLikelyPath = ClassFileLocator.getMostLikelyClassFilePath(project, javaFile);
-
-            // 显示结果
-            StringBuilder message = new StringBuilder();
-            message.append("Java File: ").append(javaFile.getName()).append("\n\n");
-            message.append("All Possible Paths:\n");
-            paths.forEach(path -> message.append("• ").append(path).append("\n"));
-            message.append("\nExisting Paths:\n");
-            if (existingPaths.isEmpty()) {
-                message.append("• No corresponding .class files found (may need to compile first)\n");
-            } else {
-                existingPaths.forEach(path -> message.append("• ").append(path).append("\n"));
+            // 查找在后台执行，不阻塞 EDT；所有策略只执行一遍，结果直接送到候选弹窗中
+            ProgressManager.getInstance().run(new Task.Backgroundable(project, "Locating class file for " + virtualFile.getName(), true) {
+                @Override
+                public void run(@NotNull ProgressIndicator indicator) {
+                    new ClassFileSearch(project, virtualFile, projectType, isOpenInProjectView, isOpenInExplorer, indicator).run();
+                }
+            });
+        } catch (Exception e) {
+            e.printStackTrace();
+            Messages.showErrorDialog("Error: " + e.getMessage(), "Error");
+        }
+    }
+
+    /**
+     * 打开找到的class文件，必须在 EDT 上调用
+     */
+    private static void openClassFile(Project project, String classFilePath, boolean isOpenInProjectView, boolean isOpenInExplorer) {
+        if (project.isDisposed()) return;
+        // 统一使用当前系统的路径分隔符
+        String normalizedPath = FileUtil.toSystemDependentName(classFilePath);
+        if (isOpenInProjectView) {
+            PluginUtil.openInProjectView(project, normalizedPath);
+        }
+        if (isOpenInExplorer) {
+            PluginUtil.openInExplorer(normalizedPath);
+        }
+    }
+
+    /**
+     * 同时定位多个 .java 文件对应的class文件
+     * 查找在后台执行，只查找本地编译输出目录，不检查依赖库jar包；
+     * 所有找到的class文件合并为一次文件管理器启动；项目视图中打开最后一个
+     */
+    private void locateClassFiles(Project project, VirtualFile[] selectedFiles, boolean isOpenInProjectView, boolean isOpenInExplorer) {
+        ProgressManager.getInstance().run(new Task.Backgroundable(project, "Locating class files", true) {
+            @Override
+            public void run(@NotNull ProgressIndicator indicator) {
+                try {
+                    List<File> classFiles = new ArrayList<>();
+                    List<String> missing = new ArrayList<>();
+                    indicator.setIndeterminate(false);
+                    for (int i = 0; i < selectedFiles.length; i++) {
+                        indicator.checkCanceled();
+                        indicator.setFraction((double) i / selectedFiles.length);
+                        VirtualFile file = selectedFiles[i];
+                        if (file.isDirectory() || !"java".equals(file.getExtension())) continue;
+                        indicator.setText2(file.getName());
+                        String classFilePath = ClassFileLocator.getMostLikelyLocalClassFilePath(project, file);
+                        if (classFilePath == null) {
+                            missing.add(file.getName());
+                        } else {
+                            classFiles.add(new File(FileUtil.toSystemDependentName(classFilePath)));
+                        }
+                    }
+
+                    ApplicationManager.getApplication().invokeLater(() -> {
+                        if (project.isDisposed()) return;
+                        if (!classFiles.isEmpty()) {
+                            if (isOpenInProjectView) {
+                                PluginUtil.openInProjectView(project, classFiles.get(classFiles.size() - 1).getPath());
+                            }
+                            if (isOpenInExplorer) {
+                                RevealFileService.getInstance().reveal(classFiles);
+                            }
+                        }
+                        if (!missing.isEmpty()) {
+                            Messages.showErrorDialog("No existing .class file found for: " + String.join(", ", missing)
+                                    + ". Please compile the project first.", "File Not Found");
+                        }
+                    });
+                } catch (ProcessCanceledException e) {
+                    throw e;
+                } catch (Exception e) {
+                    e.printStackTrace();
+                    ApplicationManager.getApplication().invokeLater(() -> Messages.showErrorDialog(project, "Error: " + e.getMessage(), "Error"));
+                }
             }
-            message.append("\nMost Likely Path:\n");
-            message.append("• ").append(mostLikelyPath != null ? mostLikelyPath : "Unknown");
+        });
+    }
 
-            // 确定要使用的class文件路径
-            String classFilePathToUse = determineClassFilePathEnhanced(currentFilePath, projectType, projectPath, projectName, mostLikelyPath, existingPaths);
-
-            if (classFilePathToUse == null) {
-                // 显示错误信息
-                Messages.showErrorDialog("No existing .class file found. Please compile the project first.", "File Not Found");
-                // 显示完整的消息
-                Messages.showInfoMessage(message.toString(), "Class File Path Information");
-                return;
+    /**
+     * 在后台线程并行计算各副本的哈希，存在内容不同的副本时弹出提示（非模态），说明哪些副本不同、哪个最新
+     */
+    private void reportConflictingCopies(Project project, List<String> existingPaths) {
+        ApplicationManager.getApplication().executeOnPooledThread(() -> {
+            ClassFileDuplicateDetector.Report report = ClassFileDuplicateDetector.detect(existingPaths);
+            if (!report.hasConflicts()) return;
+            String content = "Found " + report.getCopies().size() + " copies of this class in different output directories, "
+                    + report.getContentGroups().size() + " distinct versions:\n" + report.describe();
+            // 通知内容按 HTML 渲染
+            NOTIFICATION_GROUP.createNotification("Conflicting class file copies", content.replace("\n", "<br>"), NotificationType.WARNING, null)
+                    .notify(project);
+        });
+    }
+
+    /**
+     * 在后台执行一次查找：各策略产出的候选路径逐批确认是否存在，每批只确认一次
+     * 本地编译输出目录中的候选确认完后，找到class文件时直接打开，不再检查依赖库jar包；
+     * 没有找到时弹出候选列表，已确认的候选先放进去，依赖库jar包中的候选随后继续送到弹窗中
+     */
+    private final class ClassFileSearch implements ClassFileLocator.CandidateConsumer {
+        private final Project project;
+        private final VirtualFile virtualFile;
+        private final ProjectTypeEnum projectType;
+        private final boolean isOpenInProjectView;
+        private final boolean isOpenInExplorer;
+        private final ProgressIndicator indicator;
+
+        /**
+         * 弹窗打开之前已经确认的各批候选
+         */
+        private final List<Batch> batches = new ArrayList<>();
+        private boolean localSearched;
+        private ClassFileCandidatesPopup popup;
+
+        ClassFileSearch(Project project, VirtualFile virtualFile, ProjectTypeEnum projectType,
+                        boolean isOpenInProjectView, boolean isOpenInExplorer, ProgressIndicator indicator) {
+            this.project = project;
+            this.virtualFile = virtualFile;
+            this.projectType = projectType;
+            this.isOpenInProjectView = isOpenInProjectView;
+            this.isOpenInExplorer = isOpenInExplorer;
+            this.indicator = indicator;
+        }
+
+        void run() {
+            try {
+                ClassFileLocator.streamClassFilePaths(project, virtualFile, this);
+                if (!localSearched) {
+                    onLocalSearched();
+                }
+            } catch (ProcessCanceledException e) {
+                throw e;
+            } catch (Exception e) {
+                e.printStackTrace();
+                ApplicationManager.getApplication().invokeLater(() -> Messages.showErrorDialog(project, "Error: " + e.getMessage(), "Error"));
+            } finally {
+                ClassFileCandidatesPopup shown = popup;
+                if (shown != null) {
+                    ApplicationManager.getApplication().invokeLater(shown::finish);
+                }
             }
+        }
 
-            // 统一使用正斜杠或反斜杠（根据系统）
-            String normalizedPath = classFilePathToUse.replace("/", "\\");
+        @Override
+        public boolean accept(@NotNull String strategy, @NotNull List<String> paths) {
+            indicator.checkCanceled();
+            if (!localSearched && ClassFileLocator.LIBRARY_JAR_STRATEGY.equals(strategy) && !onLocalSearched()) {
+                return false;
+            }
+            indicator.setText2(strategy);
+            ClassFileCandidatesPopup shown = popup;
+            if (shown != null) {
+                if (shown.isCancelled()) return false;
+                ApplicationManager.getApplication().invokeLater(() -> shown.searching(strategy));
+            }
 
-            // 验证最终选择的路径是否存在
-            if (!new File(normalizedPath).exists()) {
-                Messages.showErrorDialog("The class file does not exist: " + normalizedPath, "File Not Found");
-                return;
+            List<String> resolved = ClassFileLocator.resolveExistingCandidates(project, paths);
+            if (shown == null) {
+                batches.add(new Batch(strategy, paths, resolved));
+            } else {
+                ApplicationManager.getApplication().invokeLater(() -> shown.addBatch(strategy, paths, resolved));
             }
+            return true;
+        }
 
-            // 执行打开操作
-            if (isOpenInProjectView) {
-                PluginUtil.openInProjectView(project, normalizedPath);
+        /**
+         * 本地编译输出目录中的候选已经全部确认
+         * @return 找到并打开了class文件时返回 false；否则打开候选弹窗并返回 true，继续检查依赖库jar包
+         */
+        private boolean onLocalSearched() {
+            localSearched = true;
+            List<String> existingPaths = new ArrayList<>();
+            for (Batch batch : batches) {
+                for (String path : batch.resolved) {
+                    if (path != null && !path.startsWith("jar:")) existingPaths.add(path);
+                }
             }
-            if (isOpenInExplorer) {
-                PluginUtil.openInExplorer(normalizedPath);
+
+            // 确定要使用的class文件路径
+            String mostLikelyPath = ClassFileLocator.getMostLikelyClassFilePath(existingPaths);
+            String classFilePathToUse = determineClassFilePathEnhanced(virtualFile.getPresentableUrl(), projectType,
+                    project.getPresentableUrl(), project.getName(), mostLikelyPath, existingPaths);
+            if (classFilePathToUse != null) {
+                ApplicationManager.getApplication().invokeLater(() -> openClassFile(project, classFilePathToUse, isOpenInProjectView, isOpenInExplorer));
+                // 同一个类在多个输出目录下存在内容不同的副本时，在后台比对并提示
+                reportConflictingCopies(project, existingPaths);
+                return false;
             }
 
-        } catch (Exception e) {
-            e.printStackTrace();
-            Messages.showErrorDialog("Error: " + e.getMessage(), "Error");
+            // 没有找到时不弹出模态对话框，改为非模态弹窗列出各个策略找到的候选路径
+            ClassFileCandidatesPopup created = new ClassFileCandidatesPopup(project, virtualFile, isOpenInProjectView, isOpenInExplorer);
+            List<Batch> found = new ArrayList<>(batches);
+            ApplicationManager.getApplication().invokeLater(() -> {
+                if (project.isDisposed()) return;
+                created.show();
+                for (Batch batch : found) {
+                    created.addBatch(batch.strategy, batch.paths, batch.resolved);
+                }
+            });
+            popup = created;
+            return true;
+        }
+    }
+
+    private static final class Batch {
+        final String strategy;
+        final List<String> paths;
+        final List<String> resolved;
+
+        Batch(String strategy, List<String> paths, List<String> resolved) {
+            this.strategy = strategy;
+            this.paths = paths;
+            this.resolved = resolved;
         }
     }
 
@@ -123,16 +304,19 @@ public final class LocateClassFileService {
      */
     private String inferClassFilePathByProjectType(String currentFilePath, ProjectTypeEnum projectType, String projectPath, String projectName) {
         String classFilePath = null;
+        // 统一使用正斜杠处理，java.io.File 在各个平台上都能识别
+        String filePath = FileUtil.toSystemIndependentName(currentFilePath);
+        String basePath = FileUtil.toSystemIndependentName(projectPath);
 
         switch (projectType) {
             case NOT_MAVEN:
-                classFilePath = currentFilePath.replace("/", "\\").replace(projectPath.replace("/", "\\") + "\\src\\", projectPath.replace("/", "\\") + "\\out\\production\\" + projectName + "\\").replace(".java", ".class");
+                classFilePath = filePath.replace(basePath + "/src/", basePath + "/out/production/" + projectName + "/").replace(".java", ".class");
                 break;
             case SINGLE_MODULE_MAVEN:
-                classFilePath = currentFilePath.replace("/", "\\").replace(projectPath.replace("/", "\\") + "\\src\\main\\java\\", projectPath.replace("/", "\\") + "\\target\\classes\\").replace(".java", ".class");
+                classFilePath = filePath.replace(basePath + "/src/main/java/", basePath + "/target/classes/").replace(".java", ".class");
                 break;
             case MULTI_MODULE_MAVEN:
-                classFilePath = currentFilePath.replace("/", "\\").replace("\\src\\main\\java\\", "\\target\\classes\\").replace(".java", ".class");
+                classFilePath = filePath.replace("/src/main/java/", "/target/classes/").replace(".java", ".class");
                 break;
         }
 
@@ -164,7 +348,8 @@ public final class LocateClassFileService {
         }
 
         // 4. 尝试其他常见的输出目录
-        String[] commonOutputPatterns = {currentFilePath.replace(".java", ".class").replace("src\\main\\java\\", "target\\classes\\"), currentFilePath.replace(".java", ".class").replace("src\\", "out\\production\\" + projectName + "\\"), currentFilePath.replace(".java", ".class").replace("src\\main\\java\\", "build\\classes\\java\\main\\"), currentFilePath.replace(".java", ".class").replace("src\\", "bin\\")};
+        String classFile = FileUtil.toSystemIndependentName(currentFilePath).replace(".java", ".class");
+        String[] commonOutputPatterns = {classFile.replace("src/main/java/", "target/classes/"), classFile.replace("src/", "out/production/" + projectName + "/"), classFile.replace("src/main/java/", "build/classes/java/main/"), classFile.replace("src/", "bin/")};
 
         for (String pattern : commonOutputPatterns) {
             if (new File(pattern).exists()) {
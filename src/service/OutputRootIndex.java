@@ -0,0 +1,202 @@
+package service;
+
+import com.intellij.openapi.components.Service;
+import com.intellij.openapi.module.Module;
+import com.intellij.openapi.module.ModuleManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.roots.CompilerModuleExtension;
+import com.intellij.openapi.roots.LibraryOrderEntry;
+import com.intellij.openapi.roots.ModuleOrderEntry;
+import com.intellij.openapi.roots.ModuleRootManager;
+import com.intellij.openapi.roots.OrderEntry;
+import com.intellij.openapi.roots.OrderRootType;
+import com.intellij.openapi.roots.ProjectRootManager;
+import com.intellij.openapi.vfs.VfsUtilCore;
+import com.intellij.openapi.vfs.VirtualFile;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 编译输出根目录的缓存索引
+ * 只依赖模块结构（不依赖 PSI 和文件索引），因此在 dumb mode 下同样可用；
+ * 项目结构发生变化（ProjectRootManager 修改计数变化）时自动重建
+ */
+@Service
+public final class OutputRootIndex {
+
+    /**
+     * 常见的输出目录名称
+     */
+    private static final String[] PROJECT_OUTPUT_DIR_NAMES = {"out", "build", "target", "bin", "classes"};
+
+    private final Project project;
+
+    private volatile Snapshot snapshot;
+
+    public OutputRootIndex(@NotNull Project project) {
+        this.project = project;
+    }
+
+    @NotNull
+    public static OutputRootIndex getInstance(@NotNull Project project) {
+        return project.getService(OutputRootIndex.class);
+    }
+
+    /**
+     * 获取指定模块（含其依赖模块和依赖库）的所有输出根，按查找优先级排序
+     * @param module 模块，为 null 时返回所有模块的输出根
+     */
+    @NotNull
+    public List<OutputRoot> getModuleOutputRoots(@Nullable Module module) {
+        Snapshot current = getSnapshot();
+        if (module == null) {
+            return current.allModuleRoots;
+        }
+        List<OutputRoot> roots = current.moduleRoots.get(module.getName());
+        return roots != null ? roots : current.allModuleRoots;
+    }
+
+    /**
+     * 获取项目内容根下常见的输出目录（out、build、target、bin、classes）
+     * 只缓存内容根，每次调用时再检查这些目录是否存在：编译不会改变项目结构，目录可能在缓存之后才生成
+     */
+    @NotNull
+    public List<String> getProjectOutputDirs() {
+        List<String> projectOutputDirs = new ArrayList<>();
+        for (VirtualFile root : getSnapshot().contentRoots) {
+            if (!root.isValid()) continue;
+            for (String dir : PROJECT_OUTPUT_DIR_NAMES) {
+                VirtualFile outputDir = root.findChild(dir);
+                if (outputDir != null && outputDir.exists()) {
+                    projectOutputDirs.add(outputDir.getPath());
+                }
+            }
+        }
+        return projectOutputDirs;
+    }
+
+    @NotNull
+    private Snapshot getSnapshot() {
+        long modificationCount = ProjectRootManager.getInstance(project).getModificationCount();
+        Snapshot current = snapshot;
+        if (current == null || current.modificationCount != modificationCount) {
+            current = build(modificationCount);
+            snapshot = current;
+        }
+        return current;
+    }
+
+    @NotNull
+    private Snapshot build(long modificationCount) {
+        Module[] modules = ModuleManager.getInstance(project).getModules();
+        Map<String, List<OutputRoot>> moduleRoots = new HashMap<>();
+        Set<OutputRoot> allModuleRoots = new LinkedHashSet<>();
+        for (Module module : modules) {
+            Set<OutputRoot> roots = new LinkedHashSet<>();
+            collectModuleRoots(module, roots, new LinkedHashSet<>());
+            moduleRoots.put(module.getName(), Collections.unmodifiableList(new ArrayList<>(roots)));
+            allModuleRoots.addAll(roots);
+        }
+
+        return new Snapshot(modificationCount, moduleRoots,
+                Collections.unmodifiableList(new ArrayList<>(allModuleRoots)),
+                ProjectRootManager.getInstance(project).getContentRoots());
+    }
+
+    /**
+     * 按深度优先顺序收集模块的输出目录，以及依赖模块和依赖库的输出
+     */
+    private static void collectModuleRoots(@NotNull Module module, @NotNull Set<OutputRoot> roots, @NotNull Set<Module> visited) {
+        if (!visited.add(module)) return;
+
+        CompilerModuleExtension compilerExtension = CompilerModuleExtension.getInstance(module);
+        if (compilerExtension != null) {
+            // 使用 URL 而不是 VirtualFile，输出目录尚未生成时也能得到路径
+            String outputUrl = compilerExtension.getCompilerOutputUrl();
+            if (outputUrl != null) {
+                roots.add(new OutputRoot(VfsUtilCore.urlToPath(outputUrl), false));
+            }
+            String testOutputUrl = compilerExtension.getCompilerOutputUrlForTests();
+            if (testOutputUrl != null) {
+                roots.add(new OutputRoot(VfsUtilCore.urlToPath(testOutputUrl), false));
+            }
+        }
+
+        for (OrderEntry orderEntry : ModuleRootManager.getInstance(module).getOrderEntries()) {
+            if (orderEntry instanceof ModuleOrderEntry) {
+                Module dependencyModule = ((ModuleOrderEntry) orderEntry).getModule();
+                if (dependencyModule != null) {
+                    collectModuleRoots(dependencyModule, roots, visited);
+                }
+            } else if (orderEntry instanceof LibraryOrderEntry) {
+                for (VirtualFile file : ((LibraryOrderEntry) orderEntry).getFiles(OrderRootType.CLASSES)) {
+                    String path = VfsUtilCore.urlToPath(file.getUrl());
+                    if (path.endsWith("!/")) {
+                        path = path.substring(0, path.length() - 2);
+                    }
+                    if (path.endsWith(".jar")) {
+                        roots.add(new OutputRoot(path, true));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * 一个输出根：编译输出目录或者 jar 包
+     */
+    public static final class OutputRoot {
+        private final String path;
+        private final boolean jar;
+
+        OutputRoot(@NotNull String path, boolean jar) {
+            this.path = path;
+            this.jar = jar;
+        }
+
+        @NotNull
+        public String getPath() {
+            return path;
+        }
+
+        public boolean isJar() {
+            return jar;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof OutputRoot)) return false;
+            OutputRoot that = (OutputRoot) o;
+            return jar == that.jar && path.equals(that.path);
+        }
+
+        @Override
+        public int hashCode() {
+            return path.hashCode() * 31 + (jar ? 1 : 0);
+        }
+    }
+
+    private static final class Snapshot {
+        final long modificationCount;
+        final Map<String, List<OutputRoot>> moduleRoots;
+        final List<OutputRoot> allModuleRoots;
+        final VirtualFile[] contentRoots;
+
+        Snapshot(long modificationCount, Map<String, List<OutputRoot>> moduleRoots,
+                 List<OutputRoot> allModuleRoots, VirtualFile[] contentRoots) {
+            this.modificationCount = modificationCount;
+            this.moduleRoots = moduleRoots;
+            this.allModuleRoots = allModuleRoots;
+            this.contentRoots = contentRoots;
+        }
+    }
+}
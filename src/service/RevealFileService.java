@@ -0,0 +1,183 @@
+package service;
+
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.components.Service;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.util.SystemInfo;
+import com.intellij.util.concurrency.AppExecutorUtil;
+import org.jetbrains.annotations.NotNull;
+import util.ProcessLauncher;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 在系统文件管理器中显示并选中文件
+ * 根据平台选择启动方式（Linux 使用 org.freedesktop.FileManager1.ShowItems，失败时退回 xdg-open；macOS 使用 open -R；
+ * Windows 使用 explorer /select），所有进程都在后台线程启动；
+ * 短时间内多次请求的文件会合并为一次启动
+ */
+@Service
+public final class RevealFileService {
+
+    private static final Logger LOG = Logger.getInstance(RevealFileService.class);
+
+    /**
+     * 合并请求的时间窗口
+     */
+    private static final long COALESCE_DELAY_MS = 150;
+
+    public enum Platform {
+        WINDOWS, MAC, LINUX, OTHER;
+
+        @NotNull
+        static Platform current() {
+            if (SystemInfo.isWindows) return WINDOWS;
+            if (SystemInfo.isMac) return MAC;
+            if (SystemInfo.isLinux) return LINUX;
+            return OTHER;
+        }
+    }
+
+    private final Platform platform;
+    private final ProcessLauncher launcher;
+
+    private final Object lock = new Object();
+    private Set<File> pending = new LinkedHashSet<>();
+    private boolean flushScheduled;
+
+    public RevealFileService() {
+        this(Platform.current(), ProcessLauncher.SYSTEM);
+    }
+
+    /**
+     * 指定平台和进程启动方式，可以用记录命令的本地实现替换真实进程
+     */
+    RevealFileService(@NotNull Platform platform, @NotNull ProcessLauncher launcher) {
+        this.platform = platform;
+        this.launcher = launcher;
+    }
+
+    @NotNull
+    public static RevealFileService getInstance() {
+        return ApplicationManager.getApplication().getService(RevealFileService.class);
+    }
+
+    /**
+     * 异步在文件管理器中显示这些文件，不会阻塞调用线程
+     */
+    public void reveal(@NotNull Collection<File> files) {
+        if (files.isEmpty()) return;
+        synchronized (lock) {
+            pending.addAll(files);
+            if (flushScheduled) return;
+            flushScheduled = true;
+        }
+        AppExecutorUtil.getAppScheduledExecutorService().schedule(this::flush, COALESCE_DELAY_MS, TimeUnit.MILLISECONDS);
+    }
+
+    private void flush() {
+        Set<File> files;
+        synchronized (lock) {
+            files = pending;
+            pending = new LinkedHashSet<>();
+            flushScheduled = false;
+        }
+        try {
+            revealNow(new ArrayList<>(files));
+        } catch (Exception e) {
+            LOG.warn("Failed to reveal files in file manager: " + files, e);
+        }
+    }
+
+    /**
+     * 立即在当前线程启动文件管理器，调用方需要保证不在 EDT 上
+     */
+    public void revealNow(@NotNull List<File> files) throws IOException {
+        if (files.isEmpty()) return;
+        for (List<String> command : buildCommands(files)) {
+            boolean showItems = "dbus-send".equals(command.get(0));
+            int exitCode;
+            try {
+                exitCode = launcher.launch(command);
+            } catch (IOException e) {
+                // 没有安装 dbus-send 时同样退回 xdg-open
+                if (!showItems) throw e;
+                exitCode = -1;
+            }
+            // explorer 即使成功也会返回非零退出码，只有 ShowItems 需要根据结果退回 xdg-open
+            if (showItems && exitCode != 0) {
+                for (File dir : getParentDirs(files)) {
+                    launcher.launch(Arrays.asList("xdg-open", dir.getPath()));
+                }
+            }
+        }
+    }
+
+    /**
+     * 生成各平台下的启动命令
+     */
+    @NotNull
+    List<List<String>> buildCommands(@NotNull List<File> files) {
+        List<List<String>> commands = new ArrayList<>();
+        switch (platform) {
+            case LINUX:
+                StringBuilder uris = new StringBuilder();
+                for (File file : files) {
+                    if (uris.length() > 0) uris.append(',');
+                    // dbus-send 的数组参数用逗号分隔
+                    uris.append(file.getAbsoluteFile().toURI().toString().replace(",", "%2C"));
+                }
+                commands.add(Arrays.asList("dbus-send", "--session", "--print-reply",
+                        "--dest=org.freedesktop.FileManager1", "--type=method_call",
+                        "/org/freedesktop/FileManager1", "org.freedesktop.FileManager1.ShowItems",
+                        "array:string:" + uris, "string:"));
+                break;
+            case MAC:
+                List<String> open = new ArrayList<>(Arrays.asList("open", "-R"));
+                for (File file : files) open.add(file.getAbsolutePath());
+                commands.add(open);
+                break;
+            case WINDOWS:
+                // explorer 一次只能选中一个文件，每个目录启动一次
+                for (File file : getFirstFilePerDir(files)) {
+                    commands.add(Arrays.asList("explorer", "/select,", file.getAbsolutePath()));
+                }
+                break;
+            default:
+                for (File dir : getParentDirs(files)) {
+                    commands.add(Arrays.asList("xdg-open", dir.getPath()));
+                }
+                break;
+        }
+        return commands;
+    }
+
+    @NotNull
+    private static Collection<File> getFirstFilePerDir(@NotNull List<File> files) {
+        Map<File, File> firstFiles = new LinkedHashMap<>();
+        for (File file : files) {
+            firstFiles.putIfAbsent(file.getAbsoluteFile().getParentFile(), file);
+        }
+        return firstFiles.values();
+    }
+
+    @NotNull
+    private static Set<File> getParentDirs(@NotNull List<File> files) {
+        Set<File> dirs = new LinkedHashSet<>();
+        for (File file : files) {
+            File parent = file.getAbsoluteFile().getParentFile();
+            if (parent != null) dirs.add(parent);
+        }
+        return dirs;
+    }
+}
@@ -0,0 +1,221 @@
+package ui;
+
+import com.intellij.icons.AllIcons;
+import com.intellij.openapi.fileEditor.OpenFileDescriptor;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.ui.popup.JBPopup;
+import com.intellij.openapi.ui.popup.JBPopupFactory;
+import com.intellij.openapi.util.Disposer;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.openapi.vfs.JarFileSystem;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.ui.CollectionListModel;
+import com.intellij.ui.ColoredListCellRenderer;
+import com.intellij.ui.DoubleClickListener;
+import com.intellij.ui.SimpleTextAttributes;
+import com.intellij.ui.components.JBLabel;
+import com.intellij.ui.components.JBList;
+import com.intellij.ui.components.JBScrollPane;
+import com.intellij.util.ui.JBUI;
+import com.intellij.util.ui.UIUtil;
+import org.jetbrains.annotations.NotNull;
+import service.ClassOutputIndex;
+import util.JarClassIndex;
+import util.PluginUtil;
+
+import javax.swing.JList;
+import javax.swing.JPanel;
+import javax.swing.ListSelectionModel;
+import java.awt.BorderLayout;
+import java.awt.event.KeyAdapter;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseEvent;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 非模态的class文件候选列表弹窗
+ * 弹窗本身不做查找：后台的查找任务把各个策略确认过的候选逐批送进来，已存在的文件排在前面并且可以直接打开，
+ * 因此不必等待较慢的策略（例如检查依赖库jar包）全部结束。除 {@link #isCancelled()} 外的方法都必须在 EDT 上调用
+ */
+public class ClassFileCandidatesPopup {
+
+    private final Project project;
+    private final VirtualFile sourceFile;
+    private final boolean isOpenInProjectView;
+    private final boolean isOpenInExplorer;
+
+    private final AtomicBoolean cancelled = new AtomicBoolean();
+    private CollectionListModel<Candidate> model;
+    private JBList<Candidate> list;
+    private JBLabel status;
+    private int existingCount;
+    private JBPopup popup;
+
+    public ClassFileCandidatesPopup(@NotNull Project project, @NotNull VirtualFile sourceFile,
+                                    boolean isOpenInProjectView, boolean isOpenInExplorer) {
+        this.project = project;
+        this.sourceFile = sourceFile;
+        this.isOpenInProjectView = isOpenInProjectView;
+        this.isOpenInExplorer = isOpenInExplorer;
+    }
+
+    /**
+     * 显示弹窗，之后通过 {@link #addBatch} 加入候选，查找结束时调用 {@link #finish()}
+     */
+    public void show() {
+        model = new CollectionListModel<>();
+        list = new JBList<>(model);
+        status = new JBLabel("Searching...");
+        list.setCellRenderer(new CandidateRenderer());
+        list.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        list.getEmptyText().setText("Searching...");
+        new DoubleClickListener() {
+            @Override
+            protected boolean onDoubleClick(MouseEvent event) {
+                return openSelected();
+            }
+        }.installOn(list);
+        list.addKeyListener(new KeyAdapter() {
+            @Override
+            public void keyPressed(KeyEvent e) {
+                if (e.getKeyCode() == KeyEvent.VK_ENTER && openSelected()) {
+                    e.consume();
+                }
+            }
+        });
+
+        status.setForeground(UIUtil.getContextHelpForeground());
+        status.setBorder(JBUI.Borders.empty(4, 6));
+        JBScrollPane scrollPane = new JBScrollPane(list);
+        scrollPane.setPreferredSize(JBUI.size(720, 320));
+        JPanel panel = new JPanel(new BorderLayout());
+        panel.add(scrollPane, BorderLayout.CENTER);
+        panel.add(status, BorderLayout.SOUTH);
+
+        popup = JBPopupFactory.getInstance().createComponentPopupBuilder(panel, list)
+                .setTitle("Class Files for " + sourceFile.getName())
+                .setResizable(true)
+                .setMovable(true)
+                .setRequestFocus(true)
+                .setCancelOnClickOutside(true)
+                .createPopup();
+        Disposer.register(popup, () -> cancelled.set(true));
+        popup.showCenteredInCurrentWindow(project);
+    }
+
+    /**
+     * 弹窗是否已经关闭，后台查找任务据此提前结束，可以在任意线程调用
+     */
+    public boolean isCancelled() {
+        return cancelled.get();
+    }
+
+    /**
+     * 显示正在执行的查找策略
+     */
+    public void searching(@NotNull String strategy) {
+        if (popup == null || popup.isDisposed()) return;
+        status.setText("Searching: " + strategy + "...");
+    }
+
+    /**
+     * 加入一个策略产出的一批候选
+     * @param paths 候选路径
+     * @param resolved 与 paths 一一对应的确认结果，存在时为实际加载的路径（多版本jar中为目标版本下的条目），不存在时为 null
+     */
+    public void addBatch(@NotNull String strategy, @NotNull List<String> paths, @NotNull List<String> resolved) {
+        for (int i = 0; i < paths.size(); i++) {
+            String path = resolved.get(i);
+            add(new Candidate(path != null ? path : paths.get(i), strategy, path != null));
+        }
+    }
+
+    private void add(@NotNull Candidate candidate) {
+        if (popup == null || popup.isDisposed()) return;
+        if (candidate.exists) {
+            model.add(existingCount++, candidate);
+            // 第一个存在的文件出现时自动选中，按回车即可打开
+            if (existingCount == 1) {
+                list.setSelectedIndex(0);
+            }
+        } else {
+            model.add(candidate);
+        }
+    }
+
+    /**
+     * 查找结束，显示统计信息
+     */
+    public void finish() {
+        if (popup == null || popup.isDisposed()) return;
+        list.getEmptyText().setText("No candidate paths");
+        status.setText(existingCount == 0
+                ? "No existing .class file found among " + model.getSize() + " candidates. Please compile the project first."
+                : existingCount + " existing of " + model.getSize() + " candidates. Press Enter or double-click to open.");
+        status.setToolTipText("<html>Class output index: " + ClassOutputIndex.getInstance(project).describe()
+                + "<br>Jar target release: " + JarClassIndex.getTargetRelease(project) + "</html>");
+    }
+
+    /**
+     * 打开选中的候选文件，不存在的文件无法打开
+     * @return 是否打开了文件
+     */
+    private boolean openSelected() {
+        Candidate candidate = list.getSelectedValue();
+        if (candidate == null || !candidate.exists) return false;
+        popup.cancel();
+
+        if (candidate.path.startsWith("jar:")) {
+            String jarPath = candidate.path.substring("jar:".length());
+            VirtualFile classFile = JarFileSystem.getInstance().findFileByPath(jarPath);
+            if (classFile != null && isOpenInProjectView) {
+                new OpenFileDescriptor(project, classFile).navigate(true);
+            }
+            if (isOpenInExplorer) {
+                int separator = jarPath.indexOf(JarFileSystem.JAR_SEPARATOR);
+                PluginUtil.openInExplorer(FileUtil.toSystemDependentName(separator >= 0 ? jarPath.substring(0, separator) : jarPath));
+            }
+            return true;
+        }
+
+        String normalizedPath = FileUtil.toSystemDependentName(candidate.path);
+        if (isOpenInProjectView) {
+            PluginUtil.openInProjectView(project, normalizedPath);
+        }
+        if (isOpenInExplorer) {
+            PluginUtil.openInExplorer(normalizedPath);
+        }
+        return true;
+    }
+
+    private static final class Candidate {
+        final String path;
+        final String strategy;
+        final boolean exists;
+
+        Candidate(String path, String strategy, boolean exists) {
+            this.path = path;
+            this.strategy = strategy;
+            this.exists = exists;
+        }
+    }
+
+    private static final class CandidateRenderer extends ColoredListCellRenderer<Candidate> {
+        @Override
+        protected void customizeCellRenderer(@NotNull JList<? extends Candidate> list, Candidate value,
+                                             int index, boolean selected, boolean hasFocus) {
+            if (value.exists) {
+                setIcon(AllIcons.FileTypes.JavaClass);
+                append(value.path);
+            } else {
+                setIcon(AllIcons.General.Warning);
+                append(value.path, SimpleTextAttributes.GRAYED_ATTRIBUTES);
+            }
+            append("  " + value.strategy, SimpleTextAttributes.GRAYED_SMALL_ATTRIBUTES);
+            if (value.path.contains("!/META-INF/versions/")) {
+                append(" (multi-release)", SimpleTextAttributes.GRAYED_SMALL_ATTRIBUTES);
+            }
+        }
+    }
+}
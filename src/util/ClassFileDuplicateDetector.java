@@ -0,0 +1,210 @@
+package util;
+
+import com.intellij.util.concurrency.AppExecutorUtil;
+import com.intellij.util.containers.ContainerUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+/**
+ * 检测同一个类在多个输出目录（out/production、target/classes、build/classes/java/main、bin 等）下的重复副本
+ * 各副本的内容哈希并行计算，结果按 路径 + 修改时间 + 大小 缓存
+ */
+public class ClassFileDuplicateDetector {
+
+    /**
+     * 哈希缓存，key 为文件路径；文件修改时间或大小变化后自动失效
+     */
+    private static final Map<String, CachedHash> HASH_CACHE = ContainerUtil.createConcurrentSoftValueMap();
+
+    /**
+     * 读取文件时的缓冲区上限，class文件通常一次就能读完
+     */
+    private static final int MAX_READ_BUFFER = 64 * 1024;
+
+    /**
+     * 检测给定候选路径中的重复副本，jar 包内的路径和不存在的文件会被忽略
+     * @param paths 候选的class文件路径
+     * @return 检测结果
+     */
+    @NotNull
+    public static Report detect(@NotNull List<String> paths) {
+        List<File> files = paths.stream()
+                .filter(path -> !path.startsWith("jar:"))
+                .map(File::new)
+                .distinct()
+                .filter(File::isFile)
+                .collect(Collectors.toList());
+        if (files.size() < 2) {
+            return new Report(files.stream()
+                    .map(file -> new Copy(file.getPath(), file.lastModified(), null))
+                    .collect(Collectors.toList()));
+        }
+
+        List<CompletableFuture<Copy>> futures = new ArrayList<>();
+        for (File file : files) {
+            futures.add(CompletableFuture.supplyAsync(() -> new Copy(file.getPath(), file.lastModified(), hash(file)),
+                    AppExecutorUtil.getAppExecutorService()));
+        }
+        return new Report(futures.stream().map(CompletableFuture::join).collect(Collectors.toList()));
+    }
+
+    /**
+     * 计算文件内容的 SHA-1，命中缓存时不再读取文件
+     * @return 十六进制哈希；读取失败时返回 null
+     */
+    @Nullable
+    static String hash(@NotNull File file) {
+        long lastModified = file.lastModified();
+        long length = file.length();
+        CachedHash cached = HASH_CACHE.get(file.getPath());
+        if (cached != null && cached.lastModified == lastModified && cached.length == length) {
+            return cached.hash;
+        }
+
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            // 不使用内存映射：Windows 下被映射的文件在缓冲区被回收前无法覆盖或删除，会导致下一次编译写入class文件失败
+            ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(Math.max(channel.size(), 1), MAX_READ_BUFFER));
+            while (channel.read(buffer) != -1) {
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+            }
+            String hash = String.format("%040x", new BigInteger(1, digest.digest()));
+            HASH_CACHE.put(file.getPath(), new CachedHash(lastModified, length, hash));
+            return hash;
+        } catch (IOException | NoSuchAlgorithmException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 一个class文件副本
+     */
+    public static final class Copy {
+        private final String path;
+        private final long lastModified;
+        private final String hash;
+
+        Copy(@NotNull String path, long lastModified, @Nullable String hash) {
+            this.path = path;
+            this.lastModified = lastModified;
+            this.hash = hash;
+        }
+
+        @NotNull
+        public String getPath() {
+            return path;
+        }
+
+        public long getLastModified() {
+            return lastModified;
+        }
+
+        @Nullable
+        public String getHash() {
+            return hash;
+        }
+    }
+
+    /**
+     * 检测结果：所有副本（按修改时间从新到旧排序）以及按内容分组的情况
+     */
+    public static final class Report {
+        private final List<Copy> copies;
+
+        Report(@NotNull List<Copy> copies) {
+            List<Copy> sorted = new ArrayList<>(copies);
+            sorted.sort(Comparator.comparingLong(Copy::getLastModified).reversed());
+            this.copies = Collections.unmodifiableList(sorted);
+        }
+
+        @NotNull
+        public List<Copy> getCopies() {
+            return copies;
+        }
+
+        /**
+         * 最新的副本
+         */
+        @Nullable
+        public Copy getNewest() {
+            return copies.isEmpty() ? null : copies.get(0);
+        }
+
+        public boolean hasDuplicates() {
+            return copies.size() > 1;
+        }
+
+        /**
+         * 是否存在内容不同的副本
+         */
+        public boolean hasConflicts() {
+            return getContentGroups().size() > 1;
+        }
+
+        /**
+         * 按内容哈希分组，组内按修改时间从新到旧排序；无法计算哈希的副本各自单独成组
+         */
+        @NotNull
+        public List<List<Copy>> getContentGroups() {
+            Map<String, List<Copy>> groups = new LinkedHashMap<>();
+            for (Copy copy : copies) {
+                String key = copy.getHash() != null ? copy.getHash() : "?" + copy.getPath();
+                groups.computeIfAbsent(key, k -> new ArrayList<>()).add(copy);
+            }
+            return new ArrayList<>(groups.values());
+        }
+
+        /**
+         * 生成可读的报告文本
+         */
+        @NotNull
+        public String describe() {
+            StringBuilder message = new StringBuilder();
+            Copy newest = getNewest();
+            List<List<Copy>> groups = getContentGroups();
+            for (Copy copy : copies) {
+                message.append("• ").append(copy.getPath());
+                if (copy == newest) {
+                    message.append(" (newest)");
+                }
+                if (groups.size() > 1 && newest != null && copy != newest) {
+                    boolean sameAsNewest = copy.getHash() != null && copy.getHash().equals(newest.getHash());
+                    message.append(sameAsNewest ? " [same as newest]" : " [differs]");
+                }
+                message.append("\n");
+            }
+            return message.toString();
+        }
+    }
+
+    private static final class CachedHash {
+        final long lastModified;
+        final long length;
+        final String hash;
+
+        CachedHash(long lastModified, long length, String hash) {
+            this.lastModified = lastModified;
+            this.length = length;
+            this.hash = hash;
+        }
+    }
+}
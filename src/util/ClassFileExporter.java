@@ -0,0 +1,229 @@
+package util;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+
+/**
+ * 将编译好的class文件导出为补丁jar或者目录树，用于打包线上热修复补丁
+ * 文件内容通过 FileChannel.transferTo 直接写入目标，不会整个读入内存
+ */
+public class ClassFileExporter {
+
+    /**
+     * class输出索引，用于查找内部类；为 null 或者类不在索引中时退回到列目录
+     */
+    @Nullable
+    private final CompactPathTrie index;
+
+    private final List<Entry> entries = new ArrayList<>();
+    private final Set<String> entryNames = new HashSet<>();
+    /**
+     * 一次导出中各输出目录的文件列表缓存，避免为每个类重复列目录
+     */
+    private final Map<File, File[]> listingCache = new HashMap<>();
+
+    /**
+     * @param index 当前有效的class输出索引，可以为 null
+     */
+    public ClassFileExporter(@Nullable CompactPathTrie index) {
+        this.index = index;
+    }
+
+    /**
+     * 添加一个顶层class文件，以及同目录下它的所有内部类（Foo$Bar.class、Foo$1.class）
+     * @param packageName 类所在的包名，默认包为空字符串
+     * @param classFile 顶层class文件
+     * @return 实际添加的class文件个数
+     */
+    public int addClass(@NotNull String packageName, @NotNull File classFile) {
+        String packagePath = packageName.isEmpty() ? "" : packageName.replace('.', '/') + "/";
+        String fileName = classFile.getName();
+        String innerPrefix = fileName.substring(0, fileName.length() - ".class".length()) + "$";
+
+        int[] nodes = findInIndex(classFile);
+        if (nodes != null) {
+            int added = 0;
+            for (int node : nodes) {
+                String path = index.getPath(node);
+                if (add(packagePath + path.substring(path.lastIndexOf('/') + 1), new File(path))) added++;
+            }
+            return added;
+        }
+
+        int added = add(packagePath + fileName, classFile) ? 1 : 0;
+        File dir = classFile.getParentFile();
+        File[] siblings = dir == null ? null : listingCache.computeIfAbsent(dir, File::listFiles);
+        if (siblings != null) {
+            for (File sibling : siblings) {
+                String name = sibling.getName();
+                if (name.startsWith(innerPrefix) && name.endsWith(".class") && add(packagePath + name, sibling)) {
+                    added++;
+                }
+            }
+        }
+        return added;
+    }
+
+    /**
+     * 通过索引查找顶层类及其内部类，不访问磁盘
+     * @return 顶层类不在索引中时返回 null
+     */
+    @Nullable
+    private int[] findInIndex(@NotNull File classFile) {
+        File dir = classFile.getParentFile();
+        if (index == null || dir == null) return null;
+        int dirNode = index.findPath(dir.getPath().replace(File.separatorChar, '/'));
+        if (dirNode < 0) return null;
+        String fileName = classFile.getName();
+        String className = fileName.substring(0, fileName.length() - ".class".length());
+        int[] nodes = index.findClassWithInnerClasses(dirNode, className);
+        // 顶层类存在时排在第一位，不存在说明索引已经过期
+        return nodes.length > 0 && index.getName(nodes[0]).equals(className) ? nodes : null;
+    }
+
+    private boolean add(@NotNull String entryName, @NotNull File file) {
+        if (!entryNames.add(entryName)) return false;
+        entries.add(new Entry(entryName, file));
+        return true;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * 导出为jar包，jar内的目录结构与类的包结构一致
+     */
+    public void exportToJar(@NotNull File jarFile) throws IOException {
+        Manifest manifest = new Manifest();
+        manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+
+        Set<String> writtenDirs = new HashSet<>();
+        try (OutputStream out = Files.newOutputStream(jarFile.toPath());
+             JarOutputStream jar = new JarOutputStream(out, manifest)) {
+            // 不要关闭这个通道，否则会提前关闭 jar 输出流
+            WritableByteChannel target = Channels.newChannel(jar);
+            for (Entry entry : entries) {
+                writeDirectoryEntries(jar, entry.name, writtenDirs);
+
+                JarEntry jarEntry = new JarEntry(entry.name);
+                jarEntry.setTime(entry.file.lastModified());
+                jar.putNextEntry(jarEntry);
+                try (FileChannel source = FileChannel.open(entry.file.toPath(), StandardOpenOption.READ)) {
+                    transfer(source, target);
+                }
+                jar.closeEntry();
+            }
+        }
+    }
+
+    /**
+     * 导出到目录，按类的包结构创建子目录，并保留class文件的修改时间
+     * 目标文件就是源文件本身时拒绝导出，否则以截断方式打开目标会先清空源文件
+     */
+    public void exportToDirectory(@NotNull File directory) throws IOException {
+        Path root = directory.toPath();
+        for (Entry entry : entries) {
+            Path targetPath = root.resolve(entry.name);
+            if (Files.exists(targetPath) && Files.isSameFile(entry.file.toPath(), targetPath)) {
+                throw new IOException("The export target is the class file itself: " + targetPath);
+            }
+        }
+        for (Entry entry : entries) {
+            Path targetPath = root.resolve(entry.name);
+            Files.createDirectories(targetPath.getParent());
+            try (FileChannel source = FileChannel.open(entry.file.toPath(), StandardOpenOption.READ);
+                 FileChannel target = FileChannel.open(targetPath, StandardOpenOption.WRITE,
+                         StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                transfer(source, target);
+            }
+            Files.setLastModifiedTime(targetPath, FileTime.fromMillis(entry.file.lastModified()));
+        }
+    }
+
+    /**
+     * 查找与导出目录重叠（导出目录位于其中或者包含它）的class输出目录
+     * @param outputRoots class输出目录
+     * @return 重叠的输出目录，没有时返回 null
+     */
+    @Nullable
+    public static String findOverlappingOutputRoot(@NotNull File directory, @NotNull Collection<String> outputRoots) {
+        Path target = toRealPath(directory.toPath());
+        for (String outputRoot : outputRoots) {
+            Path root = toRealPath(new File(outputRoot).toPath());
+            if (target.startsWith(root) || root.startsWith(target)) {
+                return outputRoot;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 解析符号链接后的绝对路径，路径不存在时只做规范化
+     */
+    @NotNull
+    private static Path toRealPath(@NotNull Path path) {
+        try {
+            return path.toRealPath();
+        } catch (IOException e) {
+            return path.toAbsolutePath().normalize();
+        }
+    }
+
+    /**
+     * transferTo 每次调用不保证传输完整个文件，需要循环直到写完
+     */
+    private static void transfer(@NotNull FileChannel source, @NotNull WritableByteChannel target) throws IOException {
+        long size = source.size();
+        long position = 0;
+        while (position < size) {
+            long transferred = source.transferTo(position, size - position, target);
+            if (transferred <= 0) break;
+            position += transferred;
+        }
+    }
+
+    private static void writeDirectoryEntries(@NotNull JarOutputStream jar, @NotNull String entryName, @NotNull Set<String> writtenDirs) throws IOException {
+        int slash = entryName.indexOf('/');
+        while (slash >= 0) {
+            String dir = entryName.substring(0, slash + 1);
+            if (writtenDirs.add(dir)) {
+                jar.putNextEntry(new JarEntry(dir));
+                jar.closeEntry();
+            }
+            slash = entryName.indexOf('/', slash + 1);
+        }
+    }
+
+    private static final class Entry {
+        final String name;
+        final File file;
+
+        Entry(String name, File file) {
+            this.name = name;
+            this.file = file;
+        }
+    }
+}
@@ -1,20 +1,27 @@
 package util;
 
 
+import com.intellij.openapi.application.ReadAction;
 import com.intellij.openapi.module.Module;
-import com.intellij.openapi.module.ModuleManager;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.roots.*;
+import com.intellij.openapi.util.ThrowableComputable;
 import com.intellij.openapi.vfs.LocalFileSystem;
 import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.psi.PsiJavaFile;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
+import service.ClassOutputIndex;
+import service.OutputRootIndex;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Objects;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 /**
@@ -23,84 +30,128 @@ import java.util.stream.Collectors;
  */
 public class ClassFileLocator {
 
+    /**
+     * 最后执行的依赖库jar包策略，之前的策略都只产出本地编译输出目录中的路径
+     */
+    public static final String LIBRARY_JAR_STRATEGY = "Library jar";
+
     /**
      * 获取Java文件对应的所有可能class文件路径（兼容多模块、Maven、Gradle等）
      */
     @NotNull
     public static List<String> getClassFilePaths(@NotNull Project project, @NotNull PsiJavaFile javaFile) {
-        List<String> paths = new ArrayList<>();
-
-        // 方法1: 通过模块编译输出路径
-        paths.addAll(getPathsFromModuleOutput(project, javaFile));
+        VirtualFile virtualFile = javaFile.getVirtualFile();
+        if (virtualFile == null) return Collections.emptyList();
+        return getClassFilePaths(project, virtualFile);
+    }
 
-        // 方法2: 通过项目编译输出路径
-        paths.addAll(getPathsFromProjectOutput(project, javaFile));
+    /**
+     * 获取Java文件对应的所有可能class文件路径
+     * 只依赖文件路径、package 语句的词法扫描和缓存的输出根索引，不需要等待索引构建（dumb mode 可用）
+     */
+    @NotNull
+    public static List<String> getClassFilePaths(@NotNull Project project, @NotNull VirtualFile virtualFile) {
+        List<String> paths = new ArrayList<>();
+        streamClassFilePaths(project, virtualFile, (strategy, batch) -> paths.addAll(batch));
+        return paths;
+    }
 
-        // 方法3: 通过Maven/Gradle输出路径（如果适用）
-        paths.addAll(getPathsFromBuildTools(project, javaFile));
+    /**
+     * 按策略逐批产出候选class文件路径，快的策略在前，依赖库jar包在最后
+     * 每个策略在单独的读操作中执行，因此可以在后台线程调用，而不会长时间占用读锁；
+     * 各批之间已经去重并过滤空值
+     * @param consumer 接收每一批候选路径，返回 false 时停止
+     */
+    public static void streamClassFilePaths(@NotNull Project project, @NotNull VirtualFile virtualFile, @NotNull CandidateConsumer consumer) {
+        String packageName = ReadAction.compute(() -> JavaSourceNames.getPackageName(project, virtualFile));
+        streamClassFilePaths(project, virtualFile, packageName, true, consumer);
+    }
 
-        // 方法4: 通过源码相对路径计算
-        paths.addAll(getPathsFromSourceRelative(project, javaFile));
+    /**
+     * @param packageName 已经扫描得到的包名
+     * @param includeJars 是否执行依赖库jar包策略，只需要本地文件时不执行
+     */
+    private static void streamClassFilePaths(@NotNull Project project, @NotNull VirtualFile virtualFile, @NotNull String packageName,
+                                             boolean includeJars, @NotNull CandidateConsumer consumer) {
+        Set<String> seen = new HashSet<>();
+        List<Strategy> strategies = new ArrayList<>(Arrays.asList(
+                // 方法1: 通过模块编译输出路径
+                new Strategy("Module output", () -> getPathsFromModuleOutput(project, virtualFile, packageName, false)),
+                // 方法2: 通过项目编译输出路径
+                new Strategy("Project output", () -> getPathsFromProjectOutput(project, virtualFile, packageName)),
+                // 方法3: 通过Maven/Gradle输出路径（如果适用）
+                new Strategy("Maven/Gradle output", () -> getPathsFromBuildTools(project, virtualFile, packageName)),
+                // 方法4: 通过源码相对路径计算
+                new Strategy("Source relative", () -> getPathsFromSourceRelative(project, virtualFile))));
+        if (includeJars) {
+            // 方法5: 依赖库jar包（可能包含编译输出的jar）
+            strategies.add(new Strategy(LIBRARY_JAR_STRATEGY, () -> getPathsFromModuleOutput(project, virtualFile, packageName, true)));
+        }
 
-        // 去重并过滤空值
-        return paths.stream()
-                .filter(Objects::nonNull)
-                .filter(path -> !path.isEmpty())
-                .distinct()
-                .collect(Collectors.toList());
+        for (Strategy strategy : strategies) {
+            if (project.isDisposed()) return;
+            List<String> batch = ReadAction.compute(strategy.paths).stream()
+                    .filter(Objects::nonNull)
+                    .filter(path -> !path.isEmpty())
+                    .filter(seen::add)
+                    .collect(Collectors.toList());
+            if (!batch.isEmpty() && !consumer.accept(strategy.name, batch)) return;
+        }
     }
 
     /**
-     * 通过模块编译输出路径获取class文件路径
+     * 接收 {@link #streamClassFilePaths} 产出的每一批候选路径
      */
-    @NotNull
-    private static List<String> getPathsFromModuleOutput(@NotNull Project project, @NotNull PsiJavaFile javaFile) {
-        List<String> paths = new ArrayList<>();
-        VirtualFile virtualFile = javaFile.getVirtualFile();
-        if (virtualFile == null) return paths;
-
-        Module module = ModuleManager.getInstance(project).findModuleByName(virtualFile.getName());
-        if (module == null) {
-            // 如果没有找到特定模块，尝试所有模块
-            Module[] allModules = ModuleManager.getInstance(project).getModules();
-            for (Module mod : allModules) {
-                paths.addAll(getModuleClassPaths(mod, javaFile));
-            }
-        } else {
-            paths.addAll(getModuleClassPaths(module, javaFile));
-        }
+    public interface CandidateConsumer {
+        /**
+         * @param strategy 产出这批路径的策略名
+         * @param paths 候选路径
+         * @return 是否继续执行后面的策略
+         */
+        boolean accept(@NotNull String strategy, @NotNull List<String> paths);
+    }
 
-        return paths;
+    private static final class Strategy {
+        final String name;
+        final ThrowableComputable<List<String>, RuntimeException> paths;
+
+        Strategy(String name, ThrowableComputable<List<String>, RuntimeException> paths) {
+            this.name = name;
+            this.paths = paths;
+        }
     }
 
     /**
-     * 获取单个模块的class文件路径
+     * 通过模块编译输出路径（含依赖模块和依赖库）获取class文件路径
+     * @param jars 为 true 时只返回依赖库jar包中的路径，否则只返回编译输出目录中的路径
      */
     @NotNull
-    private static List<String> getModuleClassPaths(@NotNull Module module, @NotNull PsiJavaFile javaFile) {
+    private static List<String> getPathsFromModuleOutput(@NotNull Project project, @NotNull VirtualFile virtualFile, @NotNull String packageName, boolean jars) {
         List<String> paths = new ArrayList<>();
 
-        // 获取编译输出目录
-        CompilerModuleExtension compilerExtension = CompilerModuleExtension.getInstance(module);
-        if (compilerExtension != null) {
-            // 生产代码输出目录
-            VirtualFile outputDir = compilerExtension.getCompilerOutputPath();
-            if (outputDir != null) {
-                String path = buildClassFilePath(outputDir.getPath(), javaFile);
-                if (path != null) paths.add(path);
-            }
-
-            // 测试代码输出目录
-            VirtualFile testOutputDir = compilerExtension.getCompilerOutputPathForTests();
-            if (testOutputDir != null) {
-                String path = buildClassFilePath(testOutputDir.getPath(), javaFile);
-                if (path != null) paths.add(path);
+        // 文件不属于任何模块时，OutputRootIndex 返回所有模块的输出根
+        Module module = ProjectRootManager.getInstance(project).getFileIndex().getModuleForFile(virtualFile);
+        String entryName = packageName.isEmpty()
+                ? getClassFileName(virtualFile)
+                : packageName.replace('.', '/') + "/" + getClassFileName(virtualFile);
+        int targetRelease = jars ? JarClassIndex.getTargetRelease(project) : 0;
+        for (OutputRootIndex.OutputRoot root : OutputRootIndex.getInstance(project).getModuleOutputRoots(module)) {
+            if (root.isJar() != jars) continue;
+            if (root.isJar()) {
+                // 处理库依赖（可能包含编译输出的jar）
+                // 已经建立索引的jar直接选出目标版本下实际加载的条目，不包含这个类的jar不再作为候选；尚未建立索引时使用基础条目
+                JarClassIndex index = JarClassIndex.getIfCached(root.getPath());
+                if (index == null) {
+                    paths.add(JarClassIndex.toCandidatePath(root.getPath(), entryName));
+                } else {
+                    JarClassIndex.Variant variant = index.resolve(entryName, targetRelease);
+                    if (variant != null) paths.add(variant.getCandidatePath());
+                }
+            } else {
+                paths.add(buildClassFilePath(root.getPath(), packageName, virtualFile));
             }
         }
 
-        // 检查模块的依赖输出
-        paths.addAll(getDependencyOutputPaths(module, javaFile));
-
         return paths;
     }
 
@@ -108,25 +159,11 @@ public class ClassFileLocator {
      * 通过项目级别的输出路径获取
      */
     @NotNull
-    private static List<String> getPathsFromProjectOutput(@NotNull Project project, @NotNull PsiJavaFile javaFile) {
+    private static List<String> getPathsFromProjectOutput(@NotNull Project project, @NotNull VirtualFile virtualFile, @NotNull String packageName) {
         List<String> paths = new ArrayList<>();
-
-        // 检查项目设置中的输出路径
-        ProjectRootManager rootManager = ProjectRootManager.getInstance(project);
-        VirtualFile[] contentRoots = rootManager.getContentRoots();
-
-        for (VirtualFile root : contentRoots) {
-            // 常见的输出目录名称
-            String[] outputDirs = {"out", "build", "target", "bin", "classes"};
-            for (String dir : outputDirs) {
-                VirtualFile outputDir = root.findChild(dir);
-                if (outputDir != null && outputDir.exists()) {
-                    String path = buildClassFilePath(outputDir.getPath(), javaFile);
-                    if (path != null) paths.add(path);
-                }
-            }
+        for (String outputDir : OutputRootIndex.getInstance(project).getProjectOutputDirs()) {
+            paths.add(buildClassFilePath(outputDir, packageName, virtualFile));
         }
-
         return paths;
     }
 
@@ -134,19 +171,17 @@ public class ClassFileLocator {
      * 通过构建工具（Maven/Gradle）的输出路径获取
      */
     @NotNull
-    private static List<String> getPathsFromBuildTools(@NotNull Project project, @NotNull PsiJavaFile javaFile) {
+    private static List<String> getPathsFromBuildTools(@NotNull Project project, @NotNull VirtualFile virtualFile, @NotNull String packageName) {
         List<String> paths = new ArrayList<>();
-        VirtualFile virtualFile = javaFile.getVirtualFile();
-        if (virtualFile == null) return paths;
 
         // 检查Maven标准结构
         if (isMavenProject(project)) {
-            paths.addAll(getMavenClassPaths(virtualFile, javaFile));
+            paths.addAll(getMavenClassPaths(virtualFile, packageName));
         }
 
         // 检查Gradle标准结构
         if (isGradleProject(project)) {
-            paths.addAll(getGradleClassPaths(virtualFile, javaFile));
+            paths.addAll(getGradleClassPaths(virtualFile, packageName));
         }
 
         return paths;
@@ -156,7 +191,7 @@ public class ClassFileLocator {
      * 获取Maven项目的class文件路径
      */
     @NotNull
-    private static List<String> getMavenClassPaths(@NotNull VirtualFile sourceFile, @NotNull PsiJavaFile javaFile) {
+    private static List<String> getMavenClassPaths(@NotNull VirtualFile sourceFile, @NotNull String packageName) {
         List<String> paths = new ArrayList<>();
 
         VirtualFile parent = sourceFile.getParent();
@@ -167,8 +202,7 @@ public class ClassFileLocator {
                 String outputPath = sourcePath.replace("src/main/java", "target/classes")
                         .replace("src/test/java", "target/test-classes");
 
-                String classPath = buildClassFilePath(outputPath, javaFile);
-                if (classPath != null) paths.add(classPath);
+                paths.add(buildClassFilePath(outputPath, packageName, sourceFile));
                 break;
             }
             parent = parent.getParent();
@@ -181,7 +215,7 @@ public class ClassFileLocator {
      * 获取Gradle项目的class文件路径
      */
     @NotNull
-    private static List<String> getGradleClassPaths(@NotNull VirtualFile sourceFile, @NotNull PsiJavaFile javaFile) {
+    private static List<String> getGradleClassPaths(@NotNull VirtualFile sourceFile, @NotNull String packageName) {
         List<String> paths = new ArrayList<>();
 
         VirtualFile parent = sourceFile.getParent();
@@ -192,8 +226,7 @@ public class ClassFileLocator {
                 String outputPath = sourcePath.replace("src/main/java", "build/classes/java/main")
                         .replace("src/test/java", "build/classes/java/test");
 
-                String classPath = buildClassFilePath(outputPath, javaFile);
-                if (classPath != null) paths.add(classPath);
+                paths.add(buildClassFilePath(outputPath, packageName, sourceFile));
                 break;
             }
             parent = parent.getParent();
@@ -206,42 +239,35 @@ public class ClassFileLocator {
      * 通过源码相对路径计算class文件路径
      */
     @NotNull
-    private static List<String> getPathsFromSourceRelative(@NotNull Project project, @NotNull PsiJavaFile javaFile) {
+    private static List<String> getPathsFromSourceRelative(@NotNull Project project, @NotNull VirtualFile virtualFile) {
         List<String> paths = new ArrayList<>();
-        VirtualFile virtualFile = javaFile.getVirtualFile();
-        if (virtualFile == null) return paths;
-
-        Module module = ModuleManager.getInstance(project).findModuleByName(virtualFile.getName());
-        if (module != null) {
-            // 获取所有源码根目录
-            VirtualFile[] sourceRoots = ModuleRootManager.getInstance(module).getSourceRoots();
-            for (VirtualFile sourceRoot : sourceRoots) {
-                if (virtualFile.getPath().startsWith(sourceRoot.getPath())) {
-                    // 计算相对路径
-                    String relativePath = virtualFile.getPath().substring(sourceRoot.getPath().length());
-                    if (relativePath.startsWith("/")) relativePath = relativePath.substring(1);
-
-                    // 转换为class文件路径（在各种可能的输出目录中查找）
-                    String classRelativePath = relativePath.replace(".java", ".class");
-
-                    // 尝试常见的输出目录模式
-                    String[] outputPatterns = {
-                            "out/production/classes",
-                            "out/test/classes",
-                            "build/classes",
-                            "target/classes",
-                            "bin",
-                            "classes"
-                    };
-
-                    VirtualFile moduleRoot = getModuleRoot(module);
-                    if (moduleRoot != null) {
-                        for (String pattern : outputPatterns) {
-                            String potentialPath = moduleRoot.getPath() + "/" + pattern + "/" + classRelativePath;
-                            paths.add(potentialPath);
-                        }
-                    }
-                    break;
+
+        ProjectFileIndex fileIndex = ProjectRootManager.getInstance(project).getFileIndex();
+        Module module = fileIndex.getModuleForFile(virtualFile);
+        VirtualFile sourceRoot = fileIndex.getSourceRootForFile(virtualFile);
+        if (module != null && sourceRoot != null) {
+            // 计算相对路径
+            String relativePath = virtualFile.getPath().substring(sourceRoot.getPath().length());
+            if (relativePath.startsWith("/")) relativePath = relativePath.substring(1);
+
+            // 转换为class文件路径（在各种可能的输出目录中查找）
+            String classRelativePath = relativePath.replace(".java", ".class");
+
+            // 尝试常见的输出目录模式
+            String[] outputPatterns = {
+                    "out/production/classes",
+                    "out/test/classes",
+                    "build/classes",
+                    "target/classes",
+                    "bin",
+                    "classes"
+            };
+
+            VirtualFile moduleRoot = getModuleRoot(module);
+            if (moduleRoot != null) {
+                for (String pattern : outputPatterns) {
+                    String potentialPath = moduleRoot.getPath() + "/" + pattern + "/" + classRelativePath;
+                    paths.add(potentialPath);
                 }
             }
         }
@@ -252,10 +278,9 @@ public class ClassFileLocator {
     /**
      * 构建完整的class文件路径
      */
-    @Nullable
-    private static String buildClassFilePath(@NotNull String outputDir, @NotNull PsiJavaFile javaFile) {
-        String packageName = javaFile.getPackageName();
-        String className = javaFile.getName().replace(".java", ".class");
+    @NotNull
+    private static String buildClassFilePath(@NotNull String outputDir, @NotNull String packageName, @NotNull VirtualFile sourceFile) {
+        String className = getClassFileName(sourceFile);
 
         if (packageName.isEmpty()) {
             return outputDir + File.separator + className;
@@ -266,40 +291,11 @@ public class ClassFileLocator {
     }
 
     /**
-     * 获取模块依赖的输出路径
+     * 源文件对应的顶层class文件名
      */
     @NotNull
-    private static List<String> getDependencyOutputPaths(@NotNull Module module, @NotNull PsiJavaFile javaFile) {
-        List<String> paths = new ArrayList<>();
-        ModuleRootManager rootManager = ModuleRootManager.getInstance(module);
-
-        for (OrderEntry orderEntry : rootManager.getOrderEntries()) {
-            if (orderEntry instanceof ModuleOrderEntry) {
-                // 处理模块依赖
-                Module dependencyModule = ((ModuleOrderEntry) orderEntry).getModule();
-                if (dependencyModule != null) {
-                    paths.addAll(getModuleClassPaths(dependencyModule, javaFile));
-                }
-            } else if (orderEntry instanceof LibraryOrderEntry) {
-                // 处理库依赖（可能包含编译输出的jar）
-                LibraryOrderEntry libraryEntry = (LibraryOrderEntry) orderEntry;
-                for (VirtualFile file : libraryEntry.getFiles(OrderRootType.CLASSES)) {
-                    if (file.getPath().endsWith(".jar")) {
-                        // 如果是jar包，检查是否可能包含这个类
-                        String jarPath = file.getPath();
-                        String packageName = javaFile.getPackageName();
-                        String className = javaFile.getName().replace(".java", ".class");
-
-                        if (!packageName.isEmpty()) {
-                            String internalPath = packageName.replace('.', '/') + "/" + className;
-                            paths.add("jar:" + jarPath + "!/" + internalPath);
-                        }
-                    }
-                }
-            }
-        }
-
-        return paths;
+    private static String getClassFileName(@NotNull VirtualFile sourceFile) {
+        return JavaSourceNames.getClassName(sourceFile) + ".class";
     }
 
     /**
@@ -377,9 +373,121 @@ public class ClassFileLocator {
      */
     @NotNull
     public static List<String> getExistingClassFilePaths(@NotNull Project project, @NotNull PsiJavaFile javaFile) {
-        return getClassFilePaths(project, javaFile).stream()
+        VirtualFile virtualFile = javaFile.getVirtualFile();
+        if (virtualFile == null) return Collections.emptyList();
+        return getExistingClassFilePaths(project, virtualFile);
+    }
+
+    /**
+     * 获取实际存在的class文件路径
+     */
+    @NotNull
+    public static List<String> getExistingClassFilePaths(@NotNull Project project, @NotNull VirtualFile virtualFile) {
+        return filterExisting(project, getClassFilePaths(project, virtualFile));
+    }
+
+    /**
+     * 获取最可能的class文件路径（最新编译的那个副本）
+     */
+    @Nullable
+    public static String getMostLikelyClassFilePath(@NotNull Project project, @NotNull PsiJavaFile javaFile) {
+        VirtualFile virtualFile = javaFile.getVirtualFile();
+        if (virtualFile == null) return null;
+        return getMostLikelyClassFilePath(project, virtualFile);
+    }
+
+    /**
+     * 获取最可能的class文件路径（最新编译的那个副本）
+     */
+    @Nullable
+    public static String getMostLikelyClassFilePath(@NotNull Project project, @NotNull VirtualFile virtualFile) {
+        return getMostLikelyClassFilePath(getExistingClassFilePaths(project, virtualFile));
+    }
+
+    /**
+     * 从已存在的路径中挑选最可能的class文件路径
+     * 同一个类常常在多个输出目录下都有副本（不同构建工具的残留），优先选择修改时间最新的本地文件，
+     * 修改时间相同时保持列表顺序；没有本地文件时才使用 jar 包内的路径
+     */
+    @Nullable
+    public static String getMostLikelyClassFilePath(@NotNull List<String> existingPaths) {
+        String freshest = null;
+        long freshestModified = Long.MIN_VALUE;
+        for (String path : existingPaths) {
+            if (path.startsWith("jar:")) continue;
+            long lastModified = new File(path).lastModified();
+            if (lastModified > freshestModified) {
+                freshest = path;
+                freshestModified = lastModified;
+            }
+        }
+        if (freshest != null) {
+            return freshest;
+        }
+        return existingPaths.isEmpty() ? null : existingPaths.get(0);
+    }
+
+    /**
+     * 获取最可能的本地class文件路径（排除jar包内的路径），用于导出等需要真实文件的场景
+     */
+    @Nullable
+    public static String getMostLikelyLocalClassFilePath(@NotNull Project project, @NotNull VirtualFile virtualFile) {
+        String packageName = ReadAction.compute(() -> JavaSourceNames.getPackageName(project, virtualFile));
+        return getMostLikelyLocalClassFilePath(project, virtualFile, packageName);
+    }
+
+    /**
+     * 获取最可能的本地class文件路径，不执行依赖库jar包策略
+     * 每个策略在单独的短读操作中执行，调用方不要在外面再包一层读操作，否则整个查找期间都会阻塞写操作
+     * @param packageName 调用方已经扫描得到的包名，避免重复扫描
+     */
+    @Nullable
+    public static String getMostLikelyLocalClassFilePath(@NotNull Project project, @NotNull VirtualFile virtualFile, @NotNull String packageName) {
+        List<String> paths = new ArrayList<>();
+        streamClassFilePaths(project, virtualFile, packageName, false, (strategy, batch) -> paths.addAll(batch));
+        return getMostLikelyClassFilePath(filterExisting(project, paths));
+    }
+
+    /**
+     * 批量确认一批候选路径是否真实存在，并返回实际加载的路径：多版本jar中返回目标版本对应的 META-INF/versions/N/ 下的条目
+     * 本地路径先查询class输出索引再检查文件系统，jar 内的路径通过 {@link JarClassIndex} 检查。
+     * 与 {@link #filterExisting} 不同，jar 内的路径不会被直接视为存在，第一次访问jar时需要读取jar包，适合在后台线程调用
+     * @return 与 paths 一一对应，不存在的路径对应 null
+     */
+    @NotNull
+    public static List<String> resolveExistingCandidates(@NotNull Project project, @NotNull List<String> paths) {
+        ClassOutputIndex index = ClassOutputIndex.getInstance(project);
+        int targetRelease = JarClassIndex.getTargetRelease(project);
+        List<String> resolved = new ArrayList<>(paths.size());
+        for (String path : paths) {
+            if (path.startsWith("jar:")) {
+                JarClassIndex.Variant variant = JarClassIndex.resolveCandidate(path, targetRelease);
+                resolved.add(variant == null ? null : variant.getCandidatePath());
+            } else {
+                boolean exists = Boolean.TRUE.equals(index.containsClassFile(path)) || new File(path).exists();
+                resolved.add(exists ? path : null);
+            }
+        }
+        return resolved;
+    }
+
+    /**
+     * 过滤出实际存在的路径，jar 内路径视为存在
+     * 优先查询项目的class输出索引，索引命中时不再访问磁盘；索引未就绪或未命中时才检查文件系统
+     */
+    @NotNull
+    public static List<String> filterExisting(@NotNull Project project, @NotNull List<String> paths) {
+        ClassOutputIndex index = ClassOutputIndex.getInstance(project);
+        int targetRelease = JarClassIndex.getTargetRelease(project);
+        return paths.stream()
                 .filter(path -> {
                     if (path.startsWith("jar:")) {
+                        // 已经建立索引的jar只需一次查询，尚未建立索引时不读取jar包，仍视为存在
+                        return isInCachedJarIndex(path, targetRelease);
+                    }
+                    // 输出目录被删除或移动时索引会失效，命中的结果可以直接使用；
+                    // IDE 外部构建新生成的文件可能还没有刷新到索引中，所以未命中时仍然检查文件系统
+                    if (Boolean.TRUE.equals(index.containsClassFile(path))) {
                         return true;
                     }
                     File file = new File(path);
@@ -388,12 +496,11 @@ public class ClassFileLocator {
                 .collect(Collectors.toList());
     }
 
-    /**
-     * 获取最可能的class文件路径（第一个存在的路径）
-     */
-    @Nullable
-    public static String getMostLikelyClassFilePath(@NotNull Project project, @NotNull PsiJavaFile javaFile) {
-        List<String> existingPaths = getExistingClassFilePaths(project, javaFile);
-        return existingPaths.isEmpty() ? null : existingPaths.get(0);
+    private static boolean isInCachedJarIndex(@NotNull String path, int targetRelease) {
+        int separator = path.indexOf("!/");
+        if (separator < 0) return true;
+        JarClassIndex jarIndex = JarClassIndex.getIfCached(path.substring("jar:".length(), separator));
+        return jarIndex == null
+                || jarIndex.resolve(JarClassIndex.getBaseEntryName(path.substring(separator + "!/".length())), targetRelease) != null;
     }
-}
\ No newline at end of file
+}
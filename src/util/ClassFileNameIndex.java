@@ -0,0 +1,287 @@
+package util;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 基于 {@link CompactPathTrie} 的类名前缀索引，用于按简单名、限定名或驼峰缩写快速查找class文件
+ * 索引中保存两组排好序的 key：
+ * <ul>
+ *     <li>名字 key：类名（Foo$Bar 形式）以及内部类自身的名字（Bar）。不单独保存字符串，只记录节点编号和名字中的起始字节，
+ *     比较时直接读取前缀树中驻留的名字，忽略 ASCII 大小写</li>
+ *     <li>驼峰 key：名字中大写字母组成的缩写，例如 ClassFileLocator 对应 cfl，存放在同一个 byte 数组中</li>
+ * </ul>
+ * 查询时在两组 key 中二分查找前缀区间，只对区间内的候选做进一步匹配
+ */
+public class ClassFileNameIndex {
+
+    private final CompactPathTrie trie;
+
+    private final int[] nameNodes;
+    /**
+     * 名字 key 在节点名中的起始字节（按无符号数读取）：0 为完整类名，否则为最后一个 '$' 之后的位置
+     */
+    private final byte[] nameStarts;
+
+    private final int[] humpNodes;
+    private final byte[] humpBytes;
+    private final int[] humpOffsets;
+
+    private ClassFileNameIndex(@NotNull CompactPathTrie trie, int[] nameNodes, byte[] nameStarts,
+                               int[] humpNodes, byte[] humpBytes, int[] humpOffsets) {
+        this.trie = trie;
+        this.nameNodes = nameNodes;
+        this.nameStarts = nameStarts;
+        this.humpNodes = humpNodes;
+        this.humpBytes = humpBytes;
+        this.humpOffsets = humpOffsets;
+    }
+
+    /**
+     * 为前缀树中的所有class文件建立名字索引
+     */
+    @NotNull
+    public static ClassFileNameIndex build(@NotNull CompactPathTrie trie) {
+        IntList names = new IntList();
+        IntList starts = new IntList();
+        IntList humpNodes = new IntList();
+        List<byte[]> humps = new ArrayList<>();
+        trie.forEachClass(node -> {
+            names.add(node);
+            starts.add(0);
+
+            int dollar = lastDollar(trie, node);
+            String name = trie.getName(node);
+            String simpleName = name.substring(name.lastIndexOf('$') + 1);
+            // 匿名类（Foo$1）只能按完整名字查找
+            if (simpleName.isEmpty() || Character.isDigit(simpleName.charAt(0))) return;
+            // 文件名最长 255 字节，起始位置可以用一个字节保存
+            if (dollar >= 0 && dollar < 255) {
+                names.add(node);
+                starts.add(dollar + 1);
+            }
+            humpNodes.add(node);
+            humps.add(getHumpKey(simpleName).getBytes(StandardCharsets.UTF_8));
+        });
+
+        Integer[] nameOrder = order(names.size);
+        Arrays.sort(nameOrder, (a, b) -> compareNames(trie, names.values[a], starts.values[a], names.values[b], starts.values[b]));
+        int[] nameNodes = new int[names.size];
+        byte[] nameStarts = new byte[names.size];
+        for (int i = 0; i < nameOrder.length; i++) {
+            nameNodes[i] = names.values[nameOrder[i]];
+            nameStarts[i] = (byte) starts.values[nameOrder[i]];
+        }
+
+        Integer[] humpOrder = order(humps.size());
+        Arrays.sort(humpOrder, (a, b) -> compareBytes(humps.get(a), 0, humps.get(a).length, humps.get(b)));
+        int[] sortedHumpNodes = new int[humps.size()];
+        int[] humpOffsets = new int[humps.size() + 1];
+        int byteCount = 0;
+        for (byte[] hump : humps) byteCount += hump.length;
+        byte[] humpBytes = new byte[byteCount];
+        for (int i = 0, offset = 0; i < humpOrder.length; i++) {
+            byte[] hump = humps.get(humpOrder[i]);
+            System.arraycopy(hump, 0, humpBytes, offset, hump.length);
+            offset += hump.length;
+            humpOffsets[i + 1] = offset;
+            sortedHumpNodes[i] = humpNodes.values[humpOrder[i]];
+        }
+        return new ClassFileNameIndex(trie, nameNodes, nameStarts, sortedHumpNodes, humpBytes, humpOffsets);
+    }
+
+    @NotNull
+    public CompactPathTrie getTrie() {
+        return trie;
+    }
+
+    /**
+     * 查找候选class文件节点
+     * @param pattern 用户输入，可以是简单名前缀、Outer$Inner、com.example.Foo 这样的限定名，或者驼峰缩写（CFL、CFLoc）
+     * @param limit 最多返回的候选个数
+     * @return 候选节点（可能包含重复），调用方需要再用匹配器过滤和排序
+     */
+    @NotNull
+    public int[] findCandidates(@NotNull String pattern, int limit) {
+        String simplePattern = pattern;
+        int dot = pattern.lastIndexOf('.');
+        if (dot >= 0) {
+            simplePattern = pattern.substring(dot + 1);
+        }
+        if (simplePattern.isEmpty()) return new int[0];
+
+        IntList result = new IntList();
+        byte[] lower = toLowerAscii(simplePattern.getBytes(StandardCharsets.UTF_8));
+        int low = 0;
+        int high = nameNodes.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (compareNamePrefix(mid, lower) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        for (int i = low; i < nameNodes.length && result.size < limit && compareNamePrefix(i, lower) == 0; i++) {
+            result.add(nameNodes[i]);
+        }
+
+        // 输入中的大写字母作为驼峰缩写，例如 CFLoc -> cfl；全小写输入时整体作为缩写尝试
+        byte[] hump = hasUpperCase(simplePattern) ? getHumpKey(simplePattern).getBytes(StandardCharsets.UTF_8) : lower;
+        low = 0;
+        high = humpNodes.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (compareHumpPrefix(mid, hump) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        for (int i = low; i < humpNodes.length && result.size < limit && compareHumpPrefix(i, hump) == 0; i++) {
+            result.add(humpNodes[i]);
+        }
+        return result.toArray();
+    }
+
+    public int size() {
+        return nameNodes.length;
+    }
+
+    /**
+     * 估算索引本身占用的堆内存（字节），不含前缀树
+     */
+    public long estimateHeapBytes() {
+        long arrays = 5L * 16;
+        return arrays + 4L * (nameNodes.length + humpNodes.length + humpOffsets.length) + nameStarts.length + humpBytes.length;
+    }
+
+    /**
+     * 生成诊断信息文本，堆内存包含前缀树和名字索引
+     */
+    @NotNull
+    public String describe() {
+        long bytes = trie.estimateHeapBytes() + estimateHeapBytes();
+        int classCount = trie.getClassCount();
+        return String.format("%d classes, %d nodes, %d name keys, ~%d KB heap including name index (%.1f bytes/class)",
+                classCount, trie.getNodeCount(), nameNodes.length, bytes / 1024,
+                classCount == 0 ? 0.0 : (double) bytes / classCount);
+    }
+
+    /**
+     * 名字的首字母和其中的大写字母组成的小写缩写，例如 ClassFileLocator -> cfl
+     */
+    @NotNull
+    static String getHumpKey(@NotNull String name) {
+        StringBuilder hump = new StringBuilder();
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if ((i == 0 && Character.isLetter(c)) || Character.isUpperCase(c)) {
+                hump.append(Character.toLowerCase(c));
+            }
+        }
+        return hump.toString();
+    }
+
+    private static boolean hasUpperCase(@NotNull String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (Character.isUpperCase(text.charAt(i))) return true;
+        }
+        return false;
+    }
+
+    /**
+     * 名字 key 与前缀比较：以 prefix 开头时返回 0
+     */
+    private int compareNamePrefix(int entry, @NotNull byte[] prefix) {
+        int node = nameNodes[entry];
+        int start = nameStarts[entry] & 0xFF;
+        int length = trie.getNameLength(node) - start;
+        int common = Math.min(length, prefix.length);
+        for (int i = 0; i < common; i++) {
+            int diff = toLowerAscii(trie.getNameByte(node, start + i)) - (prefix[i] & 0xFF);
+            if (diff != 0) return diff;
+        }
+        return length >= prefix.length ? 0 : -1;
+    }
+
+    /**
+     * 驼峰 key 与前缀比较：以 prefix 开头时返回 0
+     */
+    private int compareHumpPrefix(int entry, @NotNull byte[] prefix) {
+        int offset = humpOffsets[entry];
+        int length = humpOffsets[entry + 1] - offset;
+        if (length < prefix.length) {
+            int diff = compareBytes(humpBytes, offset, length, prefix);
+            return diff != 0 ? diff : -1;
+        }
+        return compareBytes(humpBytes, offset, prefix.length, prefix);
+    }
+
+    private static int compareNames(@NotNull CompactPathTrie trie, int a, int aStart, int b, int bStart) {
+        int aLength = trie.getNameLength(a) - aStart;
+        int bLength = trie.getNameLength(b) - bStart;
+        int common = Math.min(aLength, bLength);
+        for (int i = 0; i < common; i++) {
+            int diff = toLowerAscii(trie.getNameByte(a, aStart + i)) - toLowerAscii(trie.getNameByte(b, bStart + i));
+            if (diff != 0) return diff;
+        }
+        return aLength - bLength;
+    }
+
+    private static int compareBytes(@NotNull byte[] a, int offset, int length, @NotNull byte[] b) {
+        int common = Math.min(length, b.length);
+        for (int i = 0; i < common; i++) {
+            int diff = (a[offset + i] & 0xFF) - (b[i] & 0xFF);
+            if (diff != 0) return diff;
+        }
+        return length - b.length;
+    }
+
+    /**
+     * 节点名中最后一个 '$' 的字节位置，不存在时返回 -1
+     */
+    private static int lastDollar(@NotNull CompactPathTrie trie, int node) {
+        for (int i = trie.getNameLength(node) - 1; i >= 0; i--) {
+            if (trie.getNameByte(node, i) == '$') return i;
+        }
+        return -1;
+    }
+
+    private static int toLowerAscii(byte b) {
+        return b >= 'A' && b <= 'Z' ? b + ('a' - 'A') : b & 0xFF;
+    }
+
+    @NotNull
+    private static byte[] toLowerAscii(@NotNull byte[] bytes) {
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) toLowerAscii(bytes[i]);
+        }
+        return bytes;
+    }
+
+    @NotNull
+    private static Integer[] order(int size) {
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) order[i] = i;
+        return order;
+    }
+
+    private static final class IntList {
+        int[] values = new int[16];
+        int size;
+
+        void add(int value) {
+            if (size == values.length) values = Arrays.copyOf(values, size * 2);
+            values[size++] = value;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
@@ -0,0 +1,627 @@
+package util;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+/**
+ * 紧凑的class输出目录前缀树
+ * 每个目录或class文件是一个 int 编号的节点，节点信息保存在几个 int 数组中；
+ * 节点名（目录名、去掉 .class 后缀的类名）经过驻留后以 UTF-8 存放在同一个 byte 数组中，
+ * 因此索引中不会为每个class文件保存一个 String 路径
+ *
+ * 同一个目录下的子节点编号连续，并按名字的字节序排好，查找子节点使用二分查找；
+ * 由于 '$' 排在字母和数字之前，Foo 的内部类 Foo$Bar、Foo$1 在兄弟节点中也是连续的
+ *
+ * 扫描时不跟随符号链接，不包含任何class文件的目录（资源目录等）不会进入索引
+ */
+public class CompactPathTrie {
+
+    /**
+     * 虚拟根节点，各个输出根目录是它的子节点
+     */
+    public static final int ROOT = 0;
+
+    private static final String CLASS_SUFFIX = ".class";
+
+    private final int[] parents;
+    private final int[] names;
+    private final int[] firstChildren;
+    /**
+     * 子节点个数；class文件节点为 -1
+     */
+    private final int[] childCounts;
+    private final int nodeCount;
+    private final int classCount;
+
+    private final byte[] nameBytes;
+    private final int[] nameOffsets;
+    /**
+     * 包结构的起点（编译输出根目录）节点，扫描的根目录本身以及嵌套在其中的输出目录
+     */
+    private final BitSet packageRoots = new BitSet();
+    /**
+     * 各输出根目录的路径，下标为节点编号减去第一个根目录节点的编号；根目录数量很少，用于按前缀匹配路径
+     */
+    private final String[] rootPaths;
+
+    private CompactPathTrie(@NotNull Builder builder) {
+        nodeCount = builder.nodeCount;
+        classCount = builder.classCount;
+        parents = Arrays.copyOf(builder.parents, nodeCount);
+        names = Arrays.copyOf(builder.names, nodeCount);
+        firstChildren = Arrays.copyOf(builder.firstChildren, nodeCount);
+        childCounts = Arrays.copyOf(builder.childCounts, nodeCount);
+        nameBytes = Arrays.copyOf(builder.nameBytes, builder.nameByteCount);
+        nameOffsets = Arrays.copyOf(builder.nameOffsets, builder.nameCount + 1);
+        rootPaths = new String[nodeCount > ROOT ? childCounts[ROOT] : 0];
+        for (int i = 0; i < rootPaths.length; i++) {
+            rootPaths[i] = getName(firstChildren[ROOT] + i);
+        }
+    }
+
+    /**
+     * 扫描给定的输出根目录，构建前缀树
+     * @param rootPaths 需要扫描的输出根目录（使用 / 作为分隔符），不存在的目录会被忽略
+     * @param nestedRootPaths 嵌套在扫描目录中的其他输出根目录（例如 out 下的 out/production/module），
+     *                        计算限定名时以它们为包结构的起点
+     */
+    @NotNull
+    public static CompactPathTrie build(@NotNull List<String> rootPaths, @NotNull Collection<String> nestedRootPaths) {
+        CompactPathTrie trie = new Builder().build(rootPaths);
+        for (int node = trie.firstChildren[ROOT], end = node + trie.childCounts[ROOT]; node < end; node++) {
+            trie.packageRoots.set(node);
+        }
+        for (String path : nestedRootPaths) {
+            int node = trie.findPath(path);
+            if (node > ROOT && !trie.isClass(node)) trie.packageRoots.set(node);
+        }
+        return trie;
+    }
+
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    public int getClassCount() {
+        return classCount;
+    }
+
+    public boolean isClass(int node) {
+        return childCounts[node] < 0;
+    }
+
+    public int getParent(int node) {
+        return parents[node];
+    }
+
+    /**
+     * 节点名；class文件节点返回不带 .class 后缀的类名
+     */
+    @NotNull
+    public String getName(int node) {
+        int name = names[node];
+        return new String(nameBytes, nameOffsets[name], nameOffsets[name + 1] - nameOffsets[name], StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 节点名的 UTF-8 字节长度，供同一个包中的其他索引直接比较名字而不创建字符串
+     */
+    int getNameLength(int node) {
+        int name = names[node];
+        return nameOffsets[name + 1] - nameOffsets[name];
+    }
+
+    /**
+     * 节点名的第 index 个 UTF-8 字节
+     */
+    byte getNameByte(int node, int index) {
+        return nameBytes[nameOffsets[names[node]] + index];
+    }
+
+    /**
+     * 查找路径所在的输出根目录节点（路径就是根目录或者位于根目录之下），不分配字符串
+     * @return 节点编号，不在任何输出根目录下时返回 -1
+     */
+    public int findRootOf(@NotNull String path) {
+        for (int i = 0; i < rootPaths.length; i++) {
+            String rootPath = rootPaths[i];
+            if (path.startsWith(rootPath) && (path.length() == rootPath.length() || path.charAt(rootPath.length()) == '/')) {
+                return firstChildren[ROOT] + i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 输出根目录节点对应的路径
+     */
+    @NotNull
+    public String getRootPath(int root) {
+        return rootPaths[root - firstChildren[ROOT]];
+    }
+
+    /**
+     * 按完整路径（使用 / 分隔）查找目录或class文件节点
+     * @return 节点编号，不存在时返回 -1
+     */
+    public int findPath(@NotNull String path) {
+        int root = findRootOf(path);
+        if (root < 0) return -1;
+        int rootLength = getRootPath(root).length();
+        return path.length() == rootLength ? root : findFile(root, path, rootLength + 1);
+    }
+
+    /**
+     * 在输出根目录下按相对路径（使用 / 分隔）查找目录或class文件节点，直接比较路径中的各段，不拼接或截取字符串
+     * @param root 输出根目录节点
+     * @param path 包含相对路径的字符串
+     * @param from 相对路径在 path 中的起始位置
+     * @return 节点编号，不存在时返回 -1
+     */
+    public int findFile(int root, @NotNull String path, int from) {
+        int node = root;
+        int start = from;
+        while (node >= 0 && start < path.length()) {
+            int end = path.indexOf('/', start);
+            if (end < 0) {
+                end = path.length();
+                return end - start > CLASS_SUFFIX.length() && path.endsWith(CLASS_SUFFIX)
+                        ? findChild(node, path, start, end - CLASS_SUFFIX.length(), true)
+                        : findChild(node, path, start, end, false);
+            }
+            node = findChild(node, path, start, end, false);
+            start = end + 1;
+        }
+        return node;
+    }
+
+    /**
+     * 在 parent 目录下查找顶层类及其所有内部类（Foo、Foo$Bar、Foo$1 ...）
+     * @return 节点编号数组，顶层类（如果存在）排在第一位
+     */
+    @NotNull
+    public int[] findClassWithInnerClasses(int parent, @NotNull String className) {
+        if (parent < 0 || childCounts[parent] <= 0) return new int[0];
+        int top = findChild(parent, className, true);
+        byte[] prefix = (className + "$").getBytes(StandardCharsets.UTF_8);
+        int from = lowerBound(parent, prefix);
+        int to = from;
+        int end = firstChildren[parent] + childCounts[parent];
+        while (to < end && startsWith(names[to], prefix)) to++;
+
+        int[] result = new int[(top >= 0 ? 1 : 0) + (to - from)];
+        int i = 0;
+        if (top >= 0) result[i++] = top;
+        for (int node = from; node < to; node++) {
+            if (isClass(node)) result[i++] = node;
+        }
+        return i == result.length ? result : Arrays.copyOf(result, i);
+    }
+
+    /**
+     * 查找子节点
+     * @param isClass 要查找的是class文件节点还是目录节点
+     * @return 节点编号，不存在时返回 -1
+     */
+    public int findChild(int parent, @NotNull String name, boolean isClass) {
+        return findChild(parent, name, 0, name.length(), isClass);
+    }
+
+    /**
+     * 查找名字为 text[start, end) 的子节点
+     */
+    private int findChild(int parent, @NotNull String text, int start, int end, boolean isClass) {
+        if (parent < 0 || childCounts[parent] <= 0) return -1;
+        int low = firstChildren[parent];
+        int high = low + childCounts[parent];
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (compare(names[mid], text, start, end) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        // 同名的目录和class文件（极少见）在兄弟节点中相邻
+        int last = firstChildren[parent] + childCounts[parent];
+        for (int node = low; node < last && compare(names[node], text, start, end) == 0; node++) {
+            if (isClass(node) == isClass) return node;
+        }
+        return -1;
+    }
+
+    /**
+     * 遍历所有class文件节点
+     */
+    public void forEachClass(@NotNull IntConsumer consumer) {
+        for (int node = 0; node < nodeCount; node++) {
+            if (isClass(node)) consumer.accept(node);
+        }
+    }
+
+    /**
+     * 节点所属的（最近的）输出根目录节点
+     */
+    public int getRoot(int node) {
+        while (node > ROOT && !packageRoots.get(node)) node = parents[node];
+        return node;
+    }
+
+    /**
+     * 将节点还原为完整路径（使用 / 分隔），只在需要展示或打开文件时调用
+     */
+    @NotNull
+    public String getPath(int node) {
+        StringBuilder path = new StringBuilder();
+        appendPath(node, path);
+        if (isClass(node)) path.append(CLASS_SUFFIX);
+        return path.toString();
+    }
+
+    /**
+     * 节点相对输出根目录的限定名，例如 com.example.Foo$Bar
+     */
+    @NotNull
+    public String getQualifiedName(int node) {
+        StringBuilder name = new StringBuilder(getName(node));
+        int parent = parents[node];
+        while (parent > ROOT && !packageRoots.get(parent)) {
+            name.insert(0, '.').insert(0, getName(parent));
+            parent = parents[parent];
+        }
+        return name.toString();
+    }
+
+    private void appendPath(int node, @NotNull StringBuilder path) {
+        if (node <= ROOT) return;
+        if (parents[node] != ROOT) {
+            appendPath(parents[node], path);
+            path.append('/');
+        }
+        path.append(getName(node));
+    }
+
+    /**
+     * 估算索引占用的堆内存（字节），只计算数组本身
+     */
+    public long estimateHeapBytes() {
+        long arrays = 6L * 16;
+        return arrays + 4L * (parents.length + names.length + firstChildren.length + childCounts.length + nameOffsets.length)
+                + nameBytes.length + packageRoots.size() / 8;
+    }
+
+    /**
+     * 生成诊断信息文本
+     */
+    @NotNull
+    public String describe() {
+        long bytes = estimateHeapBytes();
+        return String.format("%d classes, %d nodes, %d distinct names, ~%d KB heap (%.1f bytes/class)",
+                classCount, nodeCount, nameOffsets.length - 1, bytes / 1024,
+                classCount == 0 ? 0.0 : (double) bytes / classCount);
+    }
+
+    private int lowerBound(int parent, @NotNull byte[] key) {
+        int low = firstChildren[parent];
+        int high = low + childCounts[parent];
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (compare(names[mid], key) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private int compare(int name, @NotNull byte[] key) {
+        int offset = nameOffsets[name];
+        int length = nameOffsets[name + 1] - offset;
+        return compareBytes(nameBytes, offset, length, key, 0, key.length);
+    }
+
+    /**
+     * 按 UTF-8 字节序比较节点名和 text[start, end)；遇到非 ASCII 字符时才编码为字节比较
+     */
+    private int compare(int name, @NotNull String text, int start, int end) {
+        int offset = nameOffsets[name];
+        int length = nameOffsets[name + 1] - offset;
+        int textLength = end - start;
+        int common = Math.min(length, textLength);
+        for (int i = 0; i < common; i++) {
+            int b = nameBytes[offset + i];
+            char c = text.charAt(start + i);
+            if (b < 0 || c >= 0x80) {
+                byte[] key = text.substring(start, end).getBytes(StandardCharsets.UTF_8);
+                return compareBytes(nameBytes, offset, length, key, 0, key.length);
+            }
+            if (b != c) return b - c;
+        }
+        return Integer.compare(length, textLength);
+    }
+
+    private boolean startsWith(int name, @NotNull byte[] prefix) {
+        int offset = nameOffsets[name];
+        int length = nameOffsets[name + 1] - offset;
+        if (length < prefix.length) return false;
+        for (int i = 0; i < prefix.length; i++) {
+            if (nameBytes[offset + i] != prefix[i]) return false;
+        }
+        return true;
+    }
+
+    private static int compareBytes(byte[] a, int aOffset, int aLength, byte[] b, int bOffset, int bLength) {
+        int length = Math.min(aLength, bLength);
+        for (int i = 0; i < length; i++) {
+            int diff = (a[aOffset + i] & 0xFF) - (b[bOffset + i] & 0xFF);
+            if (diff != 0) return diff;
+        }
+        return aLength - bLength;
+    }
+
+    /**
+     * 按广度优先顺序扫描目录，使同一目录下的子节点编号连续
+     */
+    private static final class Builder {
+        int[] parents = new int[1024];
+        int[] names = new int[1024];
+        int[] firstChildren = new int[1024];
+        int[] childCounts = new int[1024];
+        int nodeCount;
+        int classCount;
+
+        byte[] nameBytes = new byte[16 * 1024];
+        int nameByteCount;
+        int[] nameOffsets = new int[1025];
+        int nameCount;
+        /**
+         * 构建期间用于驻留节点名的开放寻址哈希表，保存的是名字编号 + 1（0 表示空槽）
+         */
+        int[] nameTable = new int[2048];
+
+        @NotNull
+        CompactPathTrie build(@NotNull List<String> rootPaths) {
+            ArrayDeque<PendingDir> queue = new ArrayDeque<>();
+            addNode(-1, intern(new byte[0]), false);
+
+            byte[][] rootNames = rootPaths.stream()
+                    .distinct()
+                    .filter(Builder::isDirectory)
+                    .map(path -> path.getBytes(StandardCharsets.UTF_8))
+                    .sorted(Builder::compareNames)
+                    .toArray(byte[][]::new);
+            firstChildren[ROOT] = nodeCount;
+            childCounts[ROOT] = rootNames.length;
+            for (byte[] rootName : rootNames) {
+                int node = addNode(ROOT, intern(rootName), false);
+                queue.add(new PendingDir(node, Paths.get(new String(rootName, StandardCharsets.UTF_8))));
+            }
+
+            List<Child> entries = new ArrayList<>();
+            while (!queue.isEmpty()) {
+                PendingDir pending = queue.poll();
+                int dirNode = pending.node;
+                entries.clear();
+                try (DirectoryStream<Path> children = Files.newDirectoryStream(pending.dir)) {
+                    for (Path child : children) {
+                        String fileName = child.getFileName().toString();
+                        boolean isClass = fileName.endsWith(CLASS_SUFFIX);
+                        if (isClass) {
+                            fileName = fileName.substring(0, fileName.length() - CLASS_SUFFIX.length());
+                        } else if (!Files.isDirectory(child, LinkOption.NOFOLLOW_LINKS)) {
+                            // 不跟随符号链接，避免符号链接形成的环使扫描无法结束
+                            continue;
+                        }
+                        entries.add(new Child(fileName.getBytes(StandardCharsets.UTF_8), isClass, child));
+                    }
+                } catch (IOException | DirectoryIteratorException e) {
+                    continue;
+                }
+                entries.sort((a, b) -> {
+                    int result = compareNames(a.name, b.name);
+                    return result != 0 ? result : Boolean.compare(a.isClass, b.isClass);
+                });
+
+                firstChildren[dirNode] = nodeCount;
+                childCounts[dirNode] = entries.size();
+                for (Child entry : entries) {
+                    int node = addNode(dirNode, intern(entry.name), entry.isClass);
+                    if (!entry.isClass) {
+                        queue.add(new PendingDir(node, entry.path));
+                    }
+                }
+            }
+            nameTable = null;
+            prune();
+            return new CompactPathTrie(this);
+        }
+
+        /**
+         * 去掉不包含任何class文件的目录，并重新整理名字池
+         * 节点按广度优先编号，子节点的编号总是大于父节点，因此可以从后往前标记、从前往后原地压缩；
+         * 同一目录下保留的子节点在压缩后仍然连续
+         */
+        private void prune() {
+            BitSet keep = new BitSet(nodeCount);
+            keep.set(ROOT);
+            for (int node = nodeCount - 1; node > ROOT; node--) {
+                // 输出根目录即使为空也保留，用于判断路径属于哪个输出根目录
+                if (childCounts[node] < 0 || parents[node] == ROOT) keep.set(node);
+                if (keep.get(node)) keep.set(parents[node]);
+            }
+            int keptCount = keep.cardinality();
+            if (keptCount == nodeCount) return;
+
+            int[] newIds = new int[nodeCount];
+            for (int node = 0, id = 0; node < nodeCount; node++) {
+                newIds[node] = keep.get(node) ? id++ : -1;
+            }
+            for (int node = 0; node < nodeCount; node++) {
+                if (!keep.get(node)) continue;
+                // newIds[node] <= node，写入的位置不会覆盖尚未读取的节点
+                int id = newIds[node];
+                int firstChild = firstChildren[node];
+                int childCount = childCounts[node];
+                parents[id] = node == ROOT ? -1 : newIds[parents[node]];
+                names[id] = names[node];
+                if (childCount < 0) {
+                    firstChildren[id] = 0;
+                    childCounts[id] = -1;
+                    continue;
+                }
+                int kept = 0;
+                firstChildren[id] = 0;
+                for (int child = firstChild; child < firstChild + childCount; child++) {
+                    if (!keep.get(child)) continue;
+                    if (kept++ == 0) firstChildren[id] = newIds[child];
+                }
+                childCounts[id] = kept;
+            }
+            nodeCount = keptCount;
+
+            // 只保留仍被引用的名字
+            int[] newNames = new int[nameCount];
+            Arrays.fill(newNames, -1);
+            byte[] bytes = new byte[nameByteCount];
+            int[] offsets = new int[nameCount + 1];
+            int count = 0;
+            int byteCount = 0;
+            for (int node = 0; node < nodeCount; node++) {
+                int name = names[node];
+                if (newNames[name] < 0) {
+                    int offset = nameOffsets[name];
+                    int length = nameOffsets[name + 1] - offset;
+                    System.arraycopy(nameBytes, offset, bytes, byteCount, length);
+                    byteCount += length;
+                    newNames[name] = count;
+                    offsets[++count] = byteCount;
+                }
+                names[node] = newNames[name];
+            }
+            nameBytes = bytes;
+            nameByteCount = byteCount;
+            nameOffsets = offsets;
+            nameCount = count;
+        }
+
+        private static boolean isDirectory(@NotNull String path) {
+            try {
+                return Files.isDirectory(Paths.get(path));
+            } catch (InvalidPathException e) {
+                return false;
+            }
+        }
+
+        private int addNode(int parent, int name, boolean isClass) {
+            if (nodeCount == parents.length) {
+                int capacity = parents.length * 2;
+                parents = Arrays.copyOf(parents, capacity);
+                names = Arrays.copyOf(names, capacity);
+                firstChildren = Arrays.copyOf(firstChildren, capacity);
+                childCounts = Arrays.copyOf(childCounts, capacity);
+            }
+            int node = nodeCount++;
+            parents[node] = parent;
+            names[node] = name;
+            childCounts[node] = isClass ? -1 : 0;
+            if (isClass) classCount++;
+            return node;
+        }
+
+        private int intern(@NotNull byte[] name) {
+            int mask = nameTable.length - 1;
+            int slot = Arrays.hashCode(name) & mask;
+            while (nameTable[slot] != 0) {
+                int existing = nameTable[slot] - 1;
+                int offset = nameOffsets[existing];
+                if (compareBytes(nameBytes, offset, nameOffsets[existing + 1] - offset, name, 0, name.length) == 0) {
+                    return existing;
+                }
+                slot = (slot + 1) & mask;
+            }
+
+            if (nameByteCount + name.length > nameBytes.length) {
+                nameBytes = Arrays.copyOf(nameBytes, Math.max(nameBytes.length * 2, nameByteCount + name.length));
+            }
+            System.arraycopy(name, 0, nameBytes, nameByteCount, name.length);
+            nameByteCount += name.length;
+            if (nameCount + 2 > nameOffsets.length) {
+                nameOffsets = Arrays.copyOf(nameOffsets, nameOffsets.length * 2);
+            }
+            int id = nameCount++;
+            nameOffsets[id + 1] = nameByteCount;
+            nameTable[slot] = id + 1;
+            // 负载因子超过 0.5 时扩容
+            if (nameCount * 2 > nameTable.length) {
+                rehash();
+            }
+            return id;
+        }
+
+        private void rehash() {
+            int[] table = new int[nameTable.length * 2];
+            int mask = table.length - 1;
+            for (int id = 0; id < nameCount; id++) {
+                int offset = nameOffsets[id];
+                int slot = hashBytes(nameBytes, offset, nameOffsets[id + 1] - offset) & mask;
+                while (table[slot] != 0) slot = (slot + 1) & mask;
+                table[slot] = id + 1;
+            }
+            nameTable = table;
+        }
+
+        /**
+         * 与 Arrays.hashCode(byte[]) 结果一致
+         */
+        private static int hashBytes(byte[] bytes, int offset, int length) {
+            int hash = 1;
+            for (int i = 0; i < length; i++) {
+                hash = 31 * hash + bytes[offset + i];
+            }
+            return hash;
+        }
+
+        private static int compareNames(byte[] a, byte[] b) {
+            return compareBytes(a, 0, a.length, b, 0, b.length);
+        }
+    }
+
+    private static final class PendingDir {
+        final int node;
+        final Path dir;
+
+        PendingDir(int node, Path dir) {
+            this.node = node;
+            this.dir = dir;
+        }
+    }
+
+    private static final class Child {
+        final byte[] name;
+        final boolean isClass;
+        final Path path;
+
+        Child(byte[] name, boolean isClass, Path path) {
+            this.name = name;
+            this.isClass = isClass;
+            this.path = path;
+        }
+    }
+}
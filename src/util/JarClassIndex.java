@@ -0,0 +1,303 @@
+package util;
+
+import com.intellij.ide.util.PropertiesComponent;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.projectRoots.JavaSdk;
+import com.intellij.openapi.projectRoots.JavaSdkVersion;
+import com.intellij.openapi.projectRoots.Sdk;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.roots.ProjectRootManager;
+import com.intellij.openapi.vfs.LocalFileSystem;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.util.containers.ContainerUtil;
+import com.intellij.util.lang.JavaVersion;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * jar包中class条目的索引，支持多版本jar（清单中 Multi-Release: true）
+ * 每个jar只读取一次目录和清单文件，按路径缓存，jar的修改时间或大小变化后重新读取。
+ * 基础条目只保存条目名的 64 位哈希（排好序的 long 数组，每个类 8 字节），查找时二分查找；
+ * 只有多版本jar中带 META-INF/versions/N/ 变体的类才保存条目名和版本
+ */
+public class JarClassIndex {
+
+    private static final Logger LOG = Logger.getInstance(JarClassIndex.class);
+
+    /**
+     * 项目级别的目标版本设置（{@link PropertiesComponent}），通过 Tools 菜单中的 action 修改，未设置时使用项目 SDK 的版本
+     */
+    public static final String TARGET_RELEASE_KEY = "java.to.class.target.release";
+
+    private static final String VERSIONS_PREFIX = "META-INF/versions/";
+    private static final String JAR_PREFIX = "jar:";
+    private static final String JAR_SEPARATOR = "!/";
+
+    private static final Map<String, JarClassIndex> CACHE = ContainerUtil.createConcurrentSoftValueMap();
+
+    private final String jarPath;
+    private final long timeStamp;
+    private final long length;
+    /**
+     * 基础条目名（pkg/Cls.class）的哈希，升序排列
+     */
+    private final long[] baseHashes;
+    /**
+     * 基础条目名到它在 META-INF/versions/N/ 下的变体版本（升序），只包含有变体的类
+     */
+    private final Map<String, int[]> versions;
+
+    private JarClassIndex(@NotNull String jarPath, long timeStamp, long length, @NotNull long[] baseHashes, @NotNull Map<String, int[]> versions) {
+        this.jarPath = jarPath;
+        this.timeStamp = timeStamp;
+        this.length = length;
+        this.baseHashes = baseHashes;
+        this.versions = versions;
+    }
+
+    /**
+     * 获取jar的索引，没有缓存或jar已经变化时读取jar包
+     * @return jar不存在或无法读取时返回 null
+     */
+    @Nullable
+    public static JarClassIndex get(@NotNull String jarPath) {
+        long[] stamp = getStamp(jarPath);
+        JarClassIndex cached = CACHE.get(jarPath);
+        if (cached != null && cached.timeStamp == stamp[0] && cached.length == stamp[1]) {
+            return cached;
+        }
+        if (stamp[0] == 0) return null;
+        try {
+            JarClassIndex index = load(jarPath, stamp[0], stamp[1]);
+            CACHE.put(jarPath, index);
+            return index;
+        } catch (IOException e) {
+            LOG.info("Failed to read jar " + jarPath + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 只返回已经缓存并且仍然有效的索引，不会读取jar包，可以在 EDT 上调用
+     * 只使用 VFS 中缓存的修改时间和大小判断是否有效，不访问磁盘；VFS 中没有这个jar时返回 null
+     */
+    @Nullable
+    public static JarClassIndex getIfCached(@NotNull String jarPath) {
+        JarClassIndex cached = CACHE.get(jarPath);
+        if (cached == null) return null;
+        VirtualFile file = LocalFileSystem.getInstance().findFileByPathIfCached(jarPath);
+        if (file == null || !file.isValid()) return null;
+        return cached.timeStamp == file.getTimeStamp() && cached.length == file.getLength() ? cached : null;
+    }
+
+    /**
+     * 解析 jar:/path/lib.jar!/pkg/Cls.class 形式的候选路径，按目标版本选择实际加载的条目
+     * 候选路径已经指向 META-INF/versions/N/ 下的条目时按对应的基础条目重新选择
+     * @return jar中没有这个类或目标版本下不可见时返回 null
+     */
+    @Nullable
+    public static Variant resolveCandidate(@NotNull String candidatePath, int targetRelease) {
+        if (!candidatePath.startsWith(JAR_PREFIX)) return null;
+        int separator = candidatePath.indexOf(JAR_SEPARATOR);
+        if (separator < 0) return null;
+        JarClassIndex index = get(candidatePath.substring(JAR_PREFIX.length(), separator));
+        return index == null ? null : index.resolve(getBaseEntryName(candidatePath.substring(separator + JAR_SEPARATOR.length())), targetRelease);
+    }
+
+    /**
+     * 按目标版本选择条目：版本不超过目标版本的变体中最高的一个，其次是基础条目
+     * 基础条目按哈希判断，不同条目名哈希冲突的概率可以忽略
+     * @param entryName 基础条目名，例如 com/example/Foo.class
+     * @return jar中没有这个类或目标版本下不可见时返回 null
+     */
+    @Nullable
+    public Variant resolve(@NotNull String entryName, int targetRelease) {
+        int[] releases = versions.get(entryName);
+        if (releases != null) {
+            for (int i = releases.length - 1; i >= 0; i--) {
+                if (releases[i] <= targetRelease) {
+                    return new Variant(jarPath, entryName, releases[i]);
+                }
+            }
+        }
+        return Arrays.binarySearch(baseHashes, hash(entryName)) >= 0 ? new Variant(jarPath, entryName, 0) : null;
+    }
+
+    /**
+     * 生成jar内条目的候选路径
+     */
+    @NotNull
+    public static String toCandidatePath(@NotNull String jarPath, @NotNull String entryPath) {
+        return JAR_PREFIX + jarPath + JAR_SEPARATOR + entryPath;
+    }
+
+    /**
+     * 获取解析多版本jar时使用的目标版本：优先使用项目设置，其次是项目 SDK 的版本，最后是当前运行的 JVM 版本
+     */
+    public static int getTargetRelease(@NotNull Project project) {
+        int configured = getConfiguredTargetRelease(project);
+        if (configured > 0) return configured;
+        Sdk sdk = ProjectRootManager.getInstance(project).getProjectSdk();
+        if (sdk != null && sdk.getSdkType() instanceof JavaSdk) {
+            JavaSdkVersion version = JavaSdk.getInstance().getVersion(sdk);
+            if (version != null) {
+                return version.getMaxLanguageLevel().toJavaVersion().feature;
+            }
+        }
+        return JavaVersion.current().feature;
+    }
+
+    /**
+     * 项目中设置的目标版本，未设置时返回 0
+     */
+    public static int getConfiguredTargetRelease(@NotNull Project project) {
+        return PropertiesComponent.getInstance(project).getInt(TARGET_RELEASE_KEY, 0);
+    }
+
+    /**
+     * 设置项目的目标版本，小于等于 0 时恢复为项目 SDK 的版本
+     */
+    public static void setTargetRelease(@NotNull Project project, int release) {
+        PropertiesComponent.getInstance(project).setValue(TARGET_RELEASE_KEY, Math.max(release, 0), 0);
+    }
+
+    /**
+     * 版本变体的条目路径对应的基础条目名，例如 META-INF/versions/17/pkg/Cls.class -> pkg/Cls.class
+     */
+    @NotNull
+    public static String getBaseEntryName(@NotNull String entryPath) {
+        if (!entryPath.startsWith(VERSIONS_PREFIX)) return entryPath;
+        int slash = entryPath.indexOf('/', VERSIONS_PREFIX.length());
+        return slash < 0 ? entryPath : entryPath.substring(slash + 1);
+    }
+
+    /**
+     * jar的修改时间和大小，优先使用 VFS 中缓存的值，VFS 中没有时才访问磁盘
+     * @return 修改时间为 0 表示jar不存在
+     */
+    @NotNull
+    private static long[] getStamp(@NotNull String jarPath) {
+        VirtualFile file = LocalFileSystem.getInstance().findFileByPathIfCached(jarPath);
+        if (file != null && file.isValid()) {
+            return new long[]{file.getTimeStamp(), file.getLength()};
+        }
+        File ioFile = new File(jarPath);
+        return new long[]{ioFile.lastModified(), ioFile.length()};
+    }
+
+    @NotNull
+    private static JarClassIndex load(@NotNull String jarPath, long timeStamp, long length) throws IOException {
+        try (ZipFile zip = new ZipFile(jarPath)) {
+            boolean multiRelease = false;
+            ZipEntry manifestEntry = zip.getEntry(JarFile.MANIFEST_NAME);
+            if (manifestEntry != null) {
+                try (InputStream in = zip.getInputStream(manifestEntry)) {
+                    multiRelease = "true".equalsIgnoreCase(new Manifest(in).getMainAttributes().getValue("Multi-Release"));
+                }
+            }
+
+            long[] baseHashes = new long[zip.size()];
+            int baseCount = 0;
+            Map<String, int[]> versions = new HashMap<>();
+            Enumeration<? extends ZipEntry> zipEntries = zip.entries();
+            while (zipEntries.hasMoreElements()) {
+                ZipEntry entry = zipEntries.nextElement();
+                String name = entry.getName();
+                if (entry.isDirectory() || !name.endsWith(".class")) continue;
+                if (!name.startsWith(VERSIONS_PREFIX)) {
+                    if (baseCount < baseHashes.length) baseHashes[baseCount++] = hash(name);
+                    continue;
+                }
+                // 不是多版本jar时 META-INF/versions 下的条目不会被加载
+                if (!multiRelease) continue;
+                int slash = name.indexOf('/', VERSIONS_PREFIX.length());
+                if (slash < 0) continue;
+                int release;
+                try {
+                    release = Integer.parseInt(name.substring(VERSIONS_PREFIX.length(), slash));
+                } catch (NumberFormatException e) {
+                    continue;
+                }
+                // JDK 只识别 9 及以上的版本目录
+                if (release < 9) continue;
+                versions.merge(name.substring(slash + 1), new int[]{release}, JarClassIndex::mergeVersions);
+            }
+            return new JarClassIndex(jarPath, timeStamp, length, sortDistinct(baseHashes, baseCount),
+                    versions.isEmpty() ? Collections.emptyMap() : versions);
+        }
+    }
+
+    /**
+     * 条目名的 64 位 FNV-1a 哈希
+     */
+    private static long hash(@NotNull String name) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < name.length(); i++) {
+            hash ^= name.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    @NotNull
+    private static long[] sortDistinct(@NotNull long[] values, int size) {
+        Arrays.sort(values, 0, size);
+        int distinct = 0;
+        for (int i = 0; i < size; i++) {
+            if (distinct == 0 || values[distinct - 1] != values[i]) values[distinct++] = values[i];
+        }
+        return Arrays.copyOf(values, distinct);
+    }
+
+    @NotNull
+    private static int[] mergeVersions(@NotNull int[] a, @NotNull int[] b) {
+        int[] merged = new int[a.length + b.length];
+        int i = 0, j = 0, k = 0;
+        while (i < a.length || j < b.length) {
+            int next = j >= b.length || (i < a.length && a[i] <= b[j]) ? a[i++] : b[j++];
+            if (k == 0 || merged[k - 1] != next) merged[k++] = next;
+        }
+        return k == merged.length ? merged : Arrays.copyOf(merged, k);
+    }
+
+    /**
+     * 目标版本下实际加载的条目
+     */
+    public static final class Variant {
+        private final String jarPath;
+        private final String entryName;
+        private final int release;
+
+        Variant(@NotNull String jarPath, @NotNull String entryName, int release) {
+            this.jarPath = jarPath;
+            this.entryName = entryName;
+            this.release = release;
+        }
+
+        /**
+         * jar内的条目路径，基础条目为 pkg/Cls.class，版本变体为 META-INF/versions/N/pkg/Cls.class
+         */
+        @NotNull
+        public String getEntryPath() {
+            return release == 0 ? entryName : VERSIONS_PREFIX + release + "/" + entryName;
+        }
+
+        @NotNull
+        public String getCandidatePath() {
+            return toCandidatePath(jarPath, getEntryPath());
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package util;
+
+import com.intellij.openapi.editor.Document;
+import com.intellij.openapi.fileEditor.FileDocumentManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.roots.ProjectRootManager;
+import com.intellij.openapi.vfs.VirtualFile;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+
+/**
+ * 不依赖 PSI 与索引，从 .java 文件中推导包名和类名，索引构建期间（dumb mode）同样可用
+ */
+public class JavaSourceNames {
+
+    /**
+     * 词法扫描时最多读取的字符数，package 语句只能出现在文件头部
+     */
+    private static final int MAX_SCAN_LENGTH = 16 * 1024;
+
+    /**
+     * 获取 .java 文件的包名
+     * 优先对文件头部的 package 语句做轻量词法扫描，失败时根据文件所在源码目录推导
+     * @param project 项目
+     * @param file java 源文件
+     * @return 包名，默认包返回空字符串
+     */
+    @NotNull
+    public static String getPackageName(@NotNull Project project, @NotNull VirtualFile file) {
+        String packageName = scanPackageName(file);
+        if (packageName != null) {
+            return packageName;
+        }
+        VirtualFile parent = file.getParent();
+        if (parent != null) {
+            // ProjectFileIndex 基于目录结构，不需要等待索引
+            String byDirectory = ProjectRootManager.getInstance(project).getFileIndex().getPackageNameByDirectory(parent);
+            if (byDirectory != null) {
+                return byDirectory;
+            }
+        }
+        return "";
+    }
+
+    /**
+     * 获取 .java 文件对应的顶层类名（即不带扩展名的文件名）
+     */
+    @NotNull
+    public static String getClassName(@NotNull VirtualFile file) {
+        return file.getNameWithoutExtension();
+    }
+
+    /**
+     * 对文件头部做词法扫描，读取 package 语句
+     * @return 包名；默认包返回空字符串；无法判断时返回 null
+     */
+    @Nullable
+    public static String scanPackageName(@NotNull VirtualFile file) {
+        // 编辑器中未保存的内容优先
+        Document document = FileDocumentManager.getInstance().getCachedDocument(file);
+        if (document != null) {
+            CharSequence text = document.getCharsSequence();
+            return scanPackageName(text.subSequence(0, Math.min(text.length(), MAX_SCAN_LENGTH)));
+        }
+        try (InputStream in = file.getInputStream();
+             Reader reader = new InputStreamReader(in, file.getCharset())) {
+            char[] buffer = new char[MAX_SCAN_LENGTH];
+            int length = 0;
+            int read;
+            while (length < buffer.length && (read = reader.read(buffer, length, buffer.length - length)) > 0) {
+                length += read;
+            }
+            return scanPackageName(new String(buffer, 0, length));
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 跳过空白和注释，读取第一个 token，如果是 package 则返回其后的限定名
+     * @param text 文件头部文本
+     * @return 包名；第一个 token 不是 package 时返回空字符串（默认包）；无法判断时返回 null
+     */
+    @Nullable
+    static String scanPackageName(@NotNull CharSequence text) {
+        int i = skipWhitespaceAndComments(text, 0);
+        if (i >= text.length()) {
+            return null;
+        }
+        // 带注解的包声明只出现在 package-info.java 中，交给目录推导处理
+        if (text.charAt(i) == '@') {
+            return null;
+        }
+        if (!startsWithKeyword(text, i, "package")) {
+            return "";
+        }
+        i += "package".length();
+
+        StringBuilder name = new StringBuilder();
+        while (true) {
+            i = skipWhitespaceAndComments(text, i);
+            if (i >= text.length()) {
+                return null;
+            }
+            char c = text.charAt(i);
+            if (c == ';') {
+                return name.length() > 0 ? name.toString() : null;
+            }
+            if (c == '.' || Character.isJavaIdentifierPart(c)) {
+                name.append(c);
+                i++;
+            } else {
+                return null;
+            }
+        }
+    }
+
+    private static int skipWhitespaceAndComments(@NotNull CharSequence text, int i) {
+        int length = text.length();
+        while (i < length) {
+            char c = text.charAt(i);
+            if (Character.isWhitespace(c) || c == '\uFEFF') {
+                i++;
+            } else if (c == '/' && i + 1 < length && text.charAt(i + 1) == '/') {
+                while (i < length && text.charAt(i) != '\n') i++;
+            } else if (c == '/' && i + 1 < length && text.charAt(i + 1) == '*') {
+                i += 2;
+                while (i + 1 < length && !(text.charAt(i) == '*' && text.charAt(i + 1) == '/')) i++;
+                i += 2;
+            } else {
+                break;
+            }
+        }
+        return Math.min(i, length);
+    }
+
+    private static boolean startsWithKeyword(@NotNull CharSequence text, int i, @NotNull String keyword) {
+        int end = i + keyword.length();
+        if (end > text.length()) {
+            return false;
+        }
+        for (int k = 0; k < keyword.length(); k++) {
+            if (text.charAt(i + k) != keyword.charAt(k)) {
+                return false;
+            }
+        }
+        return end == text.length() || !Character.isJavaIdentifierPart(text.charAt(end));
+    }
+}
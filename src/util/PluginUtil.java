@@ -15,8 +15,10 @@ import com.intellij.openapi.vfs.VirtualFile;
 import constants.ProjectTypeEnum;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
+import service.RevealFileService;
 
 import java.io.File;
+import java.util.Collections;
 
 /**
  * 插件工具类
@@ -25,7 +27,8 @@ public class PluginUtil {
 
 
     /**
-     * 在 explorer（资源管理器） 打开
+     * 在系统的文件管理器（资源管理器、Finder 等）中显示并选中文件
+     * 在后台线程启动，短时间内的多次调用会合并为一次
      * @param filePath 指定待打开的文件路径
      */
     public static void openInExplorer(String filePath) {
@@ -35,7 +38,7 @@ public class PluginUtil {
                 Messages.showErrorDialog("The file does not exist: " + filePath, "Error");
                 throw new NullPointerException("classFile 为空对象，可能文件不存在：" + filePath);
             }
-            Runtime.getRuntime().exec("explorer /select, " + filePath);
+            RevealFileService.getInstance().reveal(Collections.singletonList(new File(filePath)));
         } catch (Exception e) {
             e.printStackTrace();
         }
@@ -0,0 +1,40 @@
+package util;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+/**
+ * 启动外部进程（文件管理器等）的接口
+ * 默认实现直接启动系统进程；无界面环境下可以替换为记录命令的本地实现
+ */
+public interface ProcessLauncher {
+
+    /**
+     * 直接启动系统进程并等待其结束
+     */
+    ProcessLauncher SYSTEM = command -> {
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        // 读取并丢弃输出，避免缓冲区写满导致进程阻塞
+        try (InputStream in = process.getInputStream()) {
+            byte[] buffer = new byte[1024];
+            while (in.read(buffer) >= 0) {
+            }
+        }
+        try {
+            return process.waitFor();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for " + command.get(0), e);
+        }
+    };
+
+    /**
+     * 启动命令并等待其结束，只会在后台线程调用
+     * @param command 命令及参数
+     * @return 进程退出码
+     */
+    int launch(@NotNull List<String> command) throws IOException;
+}